@@ -0,0 +1,15 @@
+package com.gii.midapp.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResponse {
+    private Integer index;      // Position of the record in the request body
+    private Long id;            // Odoo id of the record, null when it could not be created
+    private Boolean success;
+    private String message;     // Error message when success is false
+}
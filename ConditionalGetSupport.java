@@ -0,0 +1,208 @@
+package com.gii.midapp.controller;
+
+import com.gii.midapp.base.BaseResponse;
+import com.gii.midapp.xmlrpc.OdooModelChangedEvent;
+import com.gii.midapp.xmlrpc.OdooQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ETag and Last-Modified of Odoo reads, answering conditional GETs with 304
+ * Description: The weak ETag is computed from the ids and write_date of the records of a result,
+ * Last-Modified is their latest write_date. The validators of every URL are remembered with the
+ * max(write_date) watermarks of its models: while the watermarks cached by OdooQueryCache are
+ * unchanged, a request whose If-None-Match or If-Modified-Since matches is answered 304 without
+ * reading nor serializing the result. Entries are dropped when one of their models is written
+ */
+@Component
+public class ConditionalGetSupport {
+    private static final String SOURCE_VERSION = "#source"; // Watermark key of the version of a copy, never a model name
+
+    private final OdooQueryCache odooQueryCache;
+    private final long maxAge;
+    private final Map<String, Validators> validators;
+
+    /**
+     * Constructor
+     *
+     * @param odooQueryCache    Source of the cached write_date watermarks
+     * @param maxEntries        Max number of remembered URLs, least recently used are dropped first
+     * @param maxAge            Time in milliseconds after which a URL is always read again,
+     *                          deletions made outside this service don't move the watermarks
+     */
+    @Autowired
+    public ConditionalGetSupport(OdooQueryCache odooQueryCache,
+                                 @Value("${odoo.http.conditional.max-entries:1000}") int maxEntries,
+                                 @Value("${odoo.http.conditional.max-age:300000}") long maxAge) {
+        this.odooQueryCache = odooQueryCache;
+        this.maxAge = maxAge;
+        this.validators = new LinkedHashMap<String, Validators>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Answer a GET of Odoo records, 304 when the client already holds them
+     *
+     * @param request   The request, its URL identifies the result
+     * @param models    Models the records are read from
+     * @param loader    Reads the records from Odoo
+     * @param id        Id of a record
+     * @param updatedAt write_date of a record
+     * @param renderer  Builds the response of the records, only 200 responses get validators
+     * @return ResponseEntity   304 with the validators, or the rendered response
+     */
+    public <T> ResponseEntity<BaseResponse> get(HttpServletRequest request, List<String> models, Supplier<List<T>> loader,
+                                                Function<T, Long> id, Function<T, Date> updatedAt,
+                                                Function<List<T>, ResponseEntity<BaseResponse>> renderer) {
+        return get(request, models, null, loader, id, updatedAt, renderer);
+    }
+
+    /**
+     * Answer a GET of records read from a copy of Odoo, 304 when the client already holds them
+     * Description: The copy (e.g. an in-process index) is refreshed after the watermarks move,
+     * so its version is remembered with them: validators are only stored while the copy is
+     * current, and stop matching once it changes
+     *
+     * @param request       The request, its URL identifies the result
+     * @param models        Models the records are read from
+     * @param sourceVersion Version of the copy, null while it lags Odoo; null for records read from Odoo
+     * @param loader        Reads the records
+     * @param id            Id of a record
+     * @param updatedAt     write_date of a record
+     * @param renderer      Builds the response of the records, only 200 responses get validators
+     * @return ResponseEntity   304 with the validators, or the rendered response
+     */
+    public <T> ResponseEntity<BaseResponse> get(HttpServletRequest request, List<String> models, Supplier<String> sourceVersion,
+                                                Supplier<List<T>> loader, Function<T, Long> id, Function<T, Date> updatedAt,
+                                                Function<List<T>, ResponseEntity<BaseResponse>> renderer) {
+        String key = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        ServletWebRequest webRequest = new ServletWebRequest(request);
+
+        // Read the watermarks before the records, a write landing in between only costs an extra read next time
+        Map<String, String> watermarks = odooQueryCache.getWatermarks(models);
+        if (sourceVersion != null) {
+            watermarks = new HashMap<>(watermarks);
+            watermarks.put(SOURCE_VERSION, sourceVersion.get()); // A null version keeps the result from being stored
+        }
+        Validators known;
+        synchronized (validators) {
+            known = validators.get(key);
+        }
+        if (known != null && System.currentTimeMillis() - known.storedAt < maxAge && known.watermarks.equals(watermarks)
+                && webRequest.checkNotModified(known.etag, known.lastModified)) {
+            return notModified(known);
+        }
+
+        List<T> records = loader.get();
+        ResponseEntity<BaseResponse> response = renderer.apply(records);
+        if (response.getStatusCode() != HttpStatus.OK) {
+            return response;
+        }
+
+        Validators current = validatorsOf(records, id, updatedAt, watermarks);
+        if (!watermarks.containsValue(null)) {
+            synchronized (validators) {
+                validators.put(key, current);
+            }
+        }
+        if (webRequest.checkNotModified(current.etag, current.lastModified)) {
+            return notModified(current);
+        }
+        return ResponseEntity.status(HttpStatus.OK)
+                .headers(current.toHeaders())
+                .body(response.getBody());
+    }
+
+    /**
+     * Drop the validators of every URL read from a model
+     *
+     * @param event The change
+     */
+    @EventListener
+    public void onModelChanged(OdooModelChangedEvent event) {
+        synchronized (validators) {
+            validators.values().removeIf(known -> known.watermarks.containsKey(event.getModel()));
+        }
+    }
+
+    private static ResponseEntity<BaseResponse> notModified(Validators known) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .headers(known.toHeaders())
+                .build();
+    }
+
+    /**
+     * Compute the validators of a result
+     *
+     * @return Validators   Weak ETag over the ids and write_date of the records in their order,
+     *                      Last-Modified as the latest write_date
+     */
+    private static <T> Validators validatorsOf(List<T> records, Function<T, Long> id, Function<T, Date> updatedAt,
+                                               Map<String, String> watermarks) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        long lastModified = -1;
+        for (T record : records) {
+            Date date = updatedAt.apply(record);
+            long time = date == null ? -1 : date.getTime();
+            lastModified = Math.max(lastModified, time);
+            digest.update((id.apply(record) + ":" + time + ";").getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder etag = new StringBuilder("W/\"");
+        byte[] hash = digest.digest();
+        for (int i = 0; i < 16; i++) {
+            etag.append(String.format("%02x", hash[i]));
+        }
+        etag.append('"');
+        return new Validators(etag.toString(), lastModified, watermarks, System.currentTimeMillis());
+    }
+
+    private static class Validators {
+        private final String etag;
+        private final long lastModified; // Latest write_date in milliseconds, -1 when no record has one
+        private final Map<String, String> watermarks;
+        private final long storedAt;
+
+        private Validators(String etag, long lastModified, Map<String, String> watermarks, long storedAt) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.watermarks = watermarks;
+            this.storedAt = storedAt;
+        }
+
+        private HttpHeaders toHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(etag);
+            if (lastModified >= 0) {
+                headers.setLastModified(lastModified);
+            }
+            return headers;
+        }
+    }
+}
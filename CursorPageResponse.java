@@ -0,0 +1,16 @@
+package com.gii.midapp.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private String nextCursor;  // Opaque token to pass back for the next page, null on the last page
+    private Boolean hasNext;
+}
@@ -0,0 +1,66 @@
+package com.gii.midapp.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gii.midapp.model.response.LocationListResponse;
+import com.gii.midapp.xmlrpc.OdooCallPriority;
+import com.gii.midapp.xmlrpc.query.LocationQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/location")
+public class LocationExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    LocationQuery locationQuery;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Value("${odoo.export.chunk-size:500}")
+    Integer defaultChunkSize;
+
+    /**
+     * Export every location as NDJSON (one JSON object per line)
+     * Description: Locations are read from Odoo in chunks and each chunk is written to the
+     * response before the next one is read, so the full list is never held in memory
+     *
+     * @param chunkSize     Locations per Odoo call (optional)
+     * @return NDJSON stream of locations
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLocations(@RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        int size = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        StreamingResponseBody body = out -> {
+            // A full export gives way to interactive calls
+            OdooCallPriority previous = OdooCallPriority.enter(OdooCallPriority.BULK);
+            try {
+                locationQuery.streamLocations(size, chunk -> {
+                    try {
+                        for (LocationListResponse location : chunk) {
+                            out.write(objectMapper.writeValueAsBytes(location));
+                            out.write('\n');
+                        }
+                        // Push the chunk to the client, blocks while the client is not reading
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                OdooCallPriority.enter(previous);
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK).contentType(NDJSON).body(body);
+    }
+}
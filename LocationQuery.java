@@ -1,188 +1,446 @@
-package com.gii.midapp.xmlrpc.query;
-
-import com.gii.midapp.model.response.DivisionResponse;
-import com.gii.midapp.model.response.LocationListResponse;
-import com.gii.midapp.model.response.LocationResponse;
-import com.gii.midapp.xmlrpc.OdooClientApi;
-import com.gii.midapp.xmlrpc.OdooCondition;
-import com.gii.midapp.xmlrpc.OdooConfig;
-import com.gii.midapp.xmlrpc.OdooPagination;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.stereotype.Component;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-
-@Component
-public class LocationQuery {
-    @Autowired
-    private OdooClientApi odooClientApi;
-
-    public Page<LocationListResponse> getPagedLocations(String search, Integer page, Integer limit, String orderBy, Boolean asc) {
-        Sort sortBy = asc ? Sort.by(orderBy).ascending() : Sort.by(orderBy).descending();
-        Pageable pageableRequest = PageRequest.of(page, limit, sortBy);
-
-        // Create the conditions
-        List<OdooCondition> conditions = new ArrayList<>();
-        conditions.add(new OdooCondition("id", ">", 0));
-
-        // Apply the search term if it is not empty
-        if (search != null && !search.isEmpty()) {
-            conditions.add(new OdooCondition("name", "ilike", search));
-        }
-
-        // Create the pagination configuration
-        OdooPagination odooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
-                page * limit,
-                limit,
-                orderBy + (asc ? " asc" : " desc")
-        );
-
-        // Get the data from Odoo
-        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
-        Integer totalRecord = odooClientApi.searchCount(OdooConfig.RES_LOCATION, conditions);
-
-        // Convert to List<LocationResponse>
-        List<LocationListResponse> locationList = LocationListResponse.fromOdooResponseMapper(resp);
-
-        // Turn into Page<LocationResponse>
-        return new PageImpl<>(locationList, pageableRequest, totalRecord);
-    }
-
-    public List<LocationListResponse> getAllLocations() {
-        // Create the conditions
-        List<OdooCondition> conditions = new ArrayList<>();
-        conditions.add(new OdooCondition("id", ">", 0));
-
-        // Create the pagination configuration
-        OdooPagination odooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
-                null,
-                null,
-                "id desc"
-        );
-
-        // Get the data from Odoo
-        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
-        return LocationListResponse.fromOdooResponseMapper(resp);
-    }
-
-    public List<LocationListResponse> searchLocation(String name) {
-        // Create the conditions
-        List<OdooCondition> conditions = new ArrayList<>();
-        conditions.add(new OdooCondition("id", ">", 0));
-
-        // Apply the search term if it is not empty
-        if (name != null && !name.isEmpty()) {
-            conditions.add(new OdooCondition("name", "ilike", name));
-        }
-
-        // Create the pagination configuration
-        OdooPagination odooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
-                null,
-                null,
-                "id desc"
-        );
-
-        // Get the data from Odoo
-        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
-        return LocationListResponse.fromOdooResponseMapper(resp);
-    }
-
-    public List<LocationListResponse> getLocationsByCompanyId(Long companyId) {
-        // Create the conditions
-        List<OdooCondition> conditions = new ArrayList<>();
-        // Long to Integer because Odoo only accept Integer
-        Integer idInt = Math.toIntExact(companyId);
-        conditions.add(new OdooCondition("company_id", "=", idInt));
-
-        // Create the pagination configuration
-        OdooPagination odooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
-                null,
-                null,
-                "id desc"
-        );
-
-        // Get the data from Odoo
-        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
-        return LocationListResponse.fromOdooResponseMapper(resp);
-    }
-
-    public LocationResponse getLocationById(Long id) {
-        // Create the conditions
-        List<OdooCondition> conditions = new ArrayList<>();
-        // Long to Integer because Odoo only accepts Integer
-        Integer idInt = Math.toIntExact(id);
-        conditions.add(new OdooCondition("id", "=", idInt));
-
-        // Create the pagination configuration
-        OdooPagination odooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
-                null,
-                null,
-                null
-        );
-
-        // Start the first query to retrieve the location data
-        CompletableFuture<List<Object>> locationFuture = CompletableFuture.supplyAsync(() ->
-                odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination));
-
-        // Retrieve the division IDs from the first query response
-        CompletableFuture<List<Object>> divisionIdsFuture = locationFuture.thenApply(resp -> {
-            List<Object> divisionIds = new ArrayList<>();
-            for (Object obj : resp) {
-                Map<String, Object> map = (Map<String, Object>) obj;
-                Object[] divisionIdsArray = (Object[]) map.get("division_ids");
-                divisionIds.addAll(Arrays.asList(divisionIdsArray));
-            }
-            return divisionIds;
-        });
-
-        // Create the conditions for the divisions
-        CompletableFuture<List<OdooCondition>> divisionConditionsFuture = divisionIdsFuture.thenApply(divisionIds -> {
-            List<OdooCondition> divisionConditions = new ArrayList<>();
-            divisionConditions.add(new OdooCondition("id", "in", divisionIds));
-            return divisionConditions;
-        });
-
-        // Create the pagination configuration for the divisions
-        OdooPagination divisionOdooPagination = new OdooPagination(
-                Arrays.asList("id", "name", "create_date", "write_date"),
-                null,
-                null,
-                null
-        );
-
-        // Start the second query to retrieve the division data
-        CompletableFuture<List<Object>> divisionFuture = divisionConditionsFuture.thenCompose(divisionConditions ->
-                CompletableFuture.supplyAsync(() ->
-                        odooClientApi.searchAndRead(OdooConfig.RES_DIVISION, divisionConditions, divisionOdooPagination)));
-
-        // Combine the results of the location and division queries
-        CompletableFuture<LocationResponse> combinedFuture = locationFuture.thenCombine(
-                divisionFuture,
-                (locationResp, divisionResp) -> LocationResponse.fromOdooResponseMapper(locationResp, divisionResp)
-        );
-
-        // Wait for the combined future to complete and return the result
-        try {
-            return combinedFuture.get();
-        } catch (InterruptedException | ExecutionException e) {
-            // Handle any exceptions that occurred during the execution
-            e.printStackTrace();
-            return null;
-        }
-    }
-}
+package com.gii.midapp.xmlrpc.query;
+
+import com.gii.midapp.model.response.CursorPageResponse;
+import com.gii.midapp.model.response.DivisionResponse;
+import com.gii.midapp.model.response.LocationListResponse;
+import com.gii.midapp.model.response.LocationResponse;
+import com.gii.midapp.xmlrpc.OdooClientApi;
+import com.gii.midapp.xmlrpc.OdooCondition;
+import com.gii.midapp.xmlrpc.OdooConfig;
+import com.gii.midapp.xmlrpc.OdooPagination;
+import com.gii.midapp.xmlrpc.OdooQueryCache;
+import com.gii.midapp.xmlrpc.OdooQueryTemplate;
+import com.gii.midapp.xmlrpc.OdooTaskExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+@Component
+public class LocationQuery {
+    private static final int DEFAULT_CURSOR_LIMIT = 20;
+    // Lookups by id behind getLocationById, encoded once
+    private static final OdooQueryTemplate LOCATIONS_BY_IDS = new OdooQueryTemplate(OdooConfig.RES_LOCATION, "search_read", Arrays.asList(
+            Arrays.asList(Arrays.asList("id", "in", OdooQueryTemplate.param(0))),
+            Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date")
+    ));
+    private static final OdooQueryTemplate DIVISIONS_BY_IDS = new OdooQueryTemplate(OdooConfig.RES_DIVISION, "search_read", Arrays.asList(
+            Arrays.asList(Arrays.asList("id", "in", OdooQueryTemplate.param(0))),
+            Arrays.asList("id", "name", "create_date", "write_date")
+    ));
+
+    @Autowired
+    private OdooClientApi odooClientApi;
+    @Autowired
+    private OdooQueryCache odooQueryCache;
+    @Autowired
+    private OdooTaskExecutor odooTaskExecutor;
+
+    public Page<LocationListResponse> getPagedLocations(String search, Integer page, Integer limit, String orderBy, Boolean asc) {
+        Sort sortBy = asc ? Sort.by(orderBy).ascending() : Sort.by(orderBy).descending();
+        Pageable pageableRequest = PageRequest.of(page, limit, sortBy);
+
+        // Create the conditions
+        List<OdooCondition> conditions = new ArrayList<>();
+        conditions.add(new OdooCondition("id", ">", 0));
+
+        // Apply the search term if it is not empty
+        if (search != null && !search.isEmpty()) {
+            conditions.add(new OdooCondition("name", "ilike", search));
+        }
+
+        // Create the pagination configuration
+        OdooPagination odooPagination = new OdooPagination(
+                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
+                page * limit,
+                limit,
+                orderBy + (asc ? " asc" : " desc")
+        );
+
+        // Count on the executor while the page is read on this thread
+        Future<Integer> countFuture = odooTaskExecutor.submit(() ->
+                odooClientApi.searchCount(OdooConfig.RES_LOCATION, conditions));
+        List<Object> resp;
+        try {
+            resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
+        } catch (RuntimeException e) {
+            // No page to return, don't keep the count running
+            countFuture.cancel(true);
+            throw e;
+        }
+        Integer totalRecord = odooTaskExecutor.await(countFuture);
+
+        // Convert to List<LocationResponse>
+        List<LocationListResponse> locationList = LocationListResponse.fromOdooResponseMapper(resp);
+
+        // Turn into Page<LocationResponse>
+        return new PageImpl<>(locationList, pageableRequest, totalRecord);
+    }
+
+    /**
+     * Get a page of locations without the total count
+     * Description: Reads one row more than the page size to know whether a next page
+     * exists, so search_count is never sent. Meant for infinite-scroll clients
+     *
+     * @param search    Search term on the name, optional
+     * @param page      Page number, starting at 0
+     * @param limit     Page size
+     * @param orderBy   Field to sort on
+     * @param asc       Sort direction
+     * @return Slice    The locations of the page and whether a next page exists
+     */
+    public Slice<LocationListResponse> getSlicedLocations(String search, Integer page, Integer limit, String orderBy, Boolean asc) {
+        Sort sortBy = asc ? Sort.by(orderBy).ascending() : Sort.by(orderBy).descending();
+        Pageable pageableRequest = PageRequest.of(page, limit, sortBy);
+
+        // Create the conditions
+        List<OdooCondition> conditions = new ArrayList<>();
+        conditions.add(new OdooCondition("id", ">", 0));
+
+        // Apply the search term if it is not empty
+        if (search != null && !search.isEmpty()) {
+            conditions.add(new OdooCondition("name", "ilike", search));
+        }
+
+        // Create the pagination configuration, one extra row tells if there is a next page
+        OdooPagination odooPagination = new OdooPagination(
+                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
+                page * limit,
+                limit + 1,
+                orderBy + (asc ? " asc" : " desc")
+        );
+
+        // Get the data from Odoo
+        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
+        boolean hasNext = resp.size() > limit;
+
+        // Convert to List<LocationResponse>, without the extra row
+        List<LocationListResponse> locationList = LocationListResponse.fromOdooResponseMapper(hasNext ? resp.subList(0, limit) : resp);
+
+        return new SliceImpl<>(locationList, pageableRequest, hasNext);
+    }
+
+    /**
+     * Get a page of locations by cursor (keyset pagination)
+     * Description: Instead of an offset, the page starts right after the last row of the
+     * previous page, found by seeking on (orderBy, id) in the domain. Odoo doesn't have to
+     * skip the previous rows, so every page costs the same however deep it is.
+     * orderBy should be a field that is always set (id, name, create_date, write_date, ...)
+     *
+     * The cursor records orderBy, the direction and the search it was made for, a cursor
+     * given with other ones is rejected with 400 instead of seeking to a wrong page
+     *
+     * @param search    Search term on the name, optional
+     * @param cursor    nextCursor of the previous page, null for the first page
+     * @param limit     Page size, 20 when null
+     * @param orderBy   Field to sort on, id when null, must stay the same across pages
+     * @param asc       Sort direction, ascending when null, must stay the same across pages
+     * @return CursorPageResponse The locations of the page and the cursor of the next one
+     */
+    public CursorPageResponse<LocationListResponse> getLocationsByCursor(String search, String cursor, Integer limit, String orderBy, Boolean asc) {
+        if (limit == null) {
+            limit = DEFAULT_CURSOR_LIMIT;
+        } else if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        if (orderBy == null || orderBy.isEmpty()) {
+            orderBy = "id";
+        }
+        if (asc == null) {
+            asc = true;
+        }
+
+        // Create the domain
+        List<Object> domain = new ArrayList<>();
+        domain.add(Arrays.asList("id", ">", 0));
+
+        // Apply the search term if it is not empty
+        if (search != null && !search.isEmpty()) {
+            domain.add(Arrays.asList("name", "ilike", search));
+        }
+
+        // Seek past the last row of the previous page: orderBy beyond its value, or equal with a greater id
+        if (cursor != null && !cursor.isEmpty()) {
+            Object[] position = decodeCursor(cursor, search, orderBy, asc);
+            String operator = asc ? ">" : "<";
+            if ("id".equals(orderBy)) {
+                domain.add(Arrays.asList("id", operator, position[1]));
+            } else {
+                domain.add("|");
+                domain.add(Arrays.asList(orderBy, operator, position[0]));
+                domain.add("&");
+                domain.add(Arrays.asList(orderBy, "=", position[0]));
+                domain.add(Arrays.asList("id", operator, position[1]));
+            }
+        }
+
+        List<Object> fields = new ArrayList<>(Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"));
+        if (!fields.contains(orderBy)) {
+            fields.add(orderBy);
+        }
+        String direction = asc ? " asc" : " desc";
+
+        // Get the data from Odoo, one extra row tells if there is a next page
+        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, Arrays.asList(
+                domain,
+                fields,
+                0,
+                limit + 1,
+                "id".equals(orderBy) ? "id" + direction : orderBy + direction + ", id" + direction
+        ));
+        boolean hasNext = resp.size() > limit;
+        List<Object> rows = hasNext ? resp.subList(0, limit) : resp;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Map<String, Object> last = (Map<String, Object>) rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(search, orderBy, asc, last.get(orderBy), last.get("id"));
+        }
+        return new CursorPageResponse<>(LocationListResponse.fromOdooResponseMapper(rows), nextCursor, hasNext);
+    }
+
+    /**
+     * Walk through every location chunk by chunk
+     * Description: Each chunk is read by cursor on id, handed to the consumer and dropped
+     * before the next one is read, so memory stays the same however many locations exist.
+     * A consumer that blocks (e.g. on a slow client) also holds back the next read
+     *
+     * @param chunkSize Locations per Odoo call
+     * @param consumer  Receives each chunk in id order
+     */
+    public void streamLocations(Integer chunkSize, Consumer<List<LocationListResponse>> consumer) {
+        String cursor = null;
+        CursorPageResponse<LocationListResponse> chunk;
+        do {
+            chunk = getLocationsByCursor(null, cursor, chunkSize, "id", true);
+            consumer.accept(chunk.getContent());
+            cursor = chunk.getNextCursor();
+        } while (chunk.getHasNext());
+    }
+
+    public List<LocationListResponse> getAllLocations() {
+        return odooQueryCache.get("locations:all", Arrays.asList(OdooConfig.RES_LOCATION), this::fetchAllLocations);
+    }
+
+    private List<LocationListResponse> fetchAllLocations() {
+        // Create the conditions
+        List<OdooCondition> conditions = new ArrayList<>();
+        conditions.add(new OdooCondition("id", ">", 0));
+
+        // Create the pagination configuration
+        OdooPagination odooPagination = new OdooPagination(
+                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
+                null,
+                null,
+                "id desc"
+        );
+
+        // Get the data from Odoo
+        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
+        return LocationListResponse.fromOdooResponseMapper(resp);
+    }
+
+    public List<LocationListResponse> searchLocation(String name) {
+        // Create the conditions
+        List<OdooCondition> conditions = new ArrayList<>();
+        conditions.add(new OdooCondition("id", ">", 0));
+
+        // Apply the search term if it is not empty
+        if (name != null && !name.isEmpty()) {
+            conditions.add(new OdooCondition("name", "ilike", name));
+        }
+
+        // Create the pagination configuration
+        OdooPagination odooPagination = new OdooPagination(
+                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
+                null,
+                null,
+                "id desc"
+        );
+
+        // Get the data from Odoo
+        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
+        return LocationListResponse.fromOdooResponseMapper(resp);
+    }
+
+    public List<LocationListResponse> getLocationsByCompanyId(Long companyId) {
+        return odooQueryCache.get("locations:company:" + companyId, Arrays.asList(OdooConfig.RES_LOCATION),
+                () -> fetchLocationsByCompanyId(companyId));
+    }
+
+    private List<LocationListResponse> fetchLocationsByCompanyId(Long companyId) {
+        // Create the conditions
+        List<OdooCondition> conditions = new ArrayList<>();
+        // Long to Integer because Odoo only accept Integer
+        Integer idInt = Math.toIntExact(companyId);
+        conditions.add(new OdooCondition("company_id", "=", idInt));
+
+        // Create the pagination configuration
+        OdooPagination odooPagination = new OdooPagination(
+                Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date"),
+                null,
+                null,
+                "id desc"
+        );
+
+        // Get the data from Odoo
+        List<Object> resp = odooClientApi.searchAndRead(OdooConfig.RES_LOCATION, conditions, odooPagination);
+        return LocationListResponse.fromOdooResponseMapper(resp);
+    }
+
+    public LocationResponse getLocationById(Long id) {
+        List<LocationResponse> locations = getLocationsByIds(Collections.singletonList(id));
+        return locations.isEmpty() ? null : locations.get(0);
+    }
+
+    /**
+     * Get several locations with their divisions
+     * Description: Locations and divisions are cached per id. Missing locations are read
+     * in one search_read, then the divisions of all of them that are not cached yet
+     * are read in one more search_read
+     *
+     * @param ids   Location ids, duplicates are ignored
+     * @return List The locations found, in the order of ids
+     */
+    public List<LocationResponse> getLocationsByIds(Collection<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, LocationResponse> locationsById = odooQueryCache.getAll("location:", uniqueIds,
+                Arrays.asList(OdooConfig.RES_LOCATION, OdooConfig.RES_DIVISION), this::fetchLocationsByIds);
+
+        List<LocationResponse> locations = new ArrayList<>(locationsById.size());
+        for (Long id : uniqueIds) {
+            LocationResponse location = locationsById.get(id);
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+
+    private Map<Long, LocationResponse> fetchLocationsByIds(List<Long> ids) {
+        // Get the data from Odoo, only the ids are encoded per call
+        List<Object> resp = odooClientApi.searchAndRead(LOCATIONS_BY_IDS.bind(toOdooIds(ids)));
+
+        // Collect the division ids of every location, shared divisions only once
+        Set<Long> divisionIds = new LinkedHashSet<>();
+        for (Object obj : resp) {
+            divisionIds.addAll(LocationResponse.divisionIds((Map<String, Object>) obj));
+        }
+
+        // Resolve the divisions, only the ones not cached yet are read from Odoo
+        Map<Long, DivisionResponse> divisionsById = odooQueryCache.getAll("division:", divisionIds,
+                Arrays.asList(OdooConfig.RES_DIVISION), this::fetchDivisionsByIds);
+
+        Map<Long, LocationResponse> locations = new HashMap<>();
+        for (LocationResponse location : LocationResponse.fromOdooResponseListMapper(resp, divisionsById)) {
+            locations.put(location.getId(), location);
+        }
+        return locations;
+    }
+
+    private Map<Long, DivisionResponse> fetchDivisionsByIds(List<Long> ids) {
+        // Get the data from Odoo, only the ids are encoded per call
+        List<Object> resp = odooClientApi.searchAndRead(DIVISIONS_BY_IDS.bind(toOdooIds(ids)));
+        return LocationResponse.divisionsFromOdooResponse(resp);
+    }
+
+    private List<Object> toOdooIds(Collection<Long> ids) {
+        // Long to Integer because Odoo only accepts Integer
+        List<Object> odooIds = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            odooIds.add(Math.toIntExact(id));
+        }
+        return odooIds;
+    }
+
+    /**
+     * Encode the position of a row into an opaque cursor
+     *
+     * @param search    Search term of the page
+     * @param orderBy   Field the page is sorted on
+     * @param asc       Sort direction of the page
+     * @param value     Value of the orderBy field, many2one fields are sought by their id
+     * @param id        Id of the row
+     * @return String   The cursor
+     */
+    private String encodeCursor(String search, String orderBy, boolean asc, Object value, Object id) {
+        if (value instanceof Object[]) {
+            value = ((Object[]) value)[0];
+        }
+        String type = value instanceof Integer ? "i" : value instanceof Double ? "d" : "s";
+        String raw = query(search, orderBy, asc) + ":" + id + ":" + type + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor made by encodeCursor for the same search, orderBy and direction
+     *
+     * @param cursor    The cursor
+     * @param search    Search term of the request
+     * @param orderBy   Field the request sorts on
+     * @param asc       Sort direction of the request
+     * @return Object[] The orderBy value and the id
+     */
+    private Object[] decodeCursor(String cursor, String search, String orderBy, boolean asc) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split(":", 6);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+        if (parts.length != 6) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        if (!query(search, orderBy, asc).equals(parts[0] + ":" + parts[1] + ":" + parts[2])) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The cursor was made for another search, orderBy or direction");
+        }
+        try {
+            Integer id = Integer.valueOf(parts[3]);
+            Object value;
+            switch (parts[4]) {
+                case "i":
+                    value = Integer.valueOf(parts[5]);
+                    break;
+                case "d":
+                    value = Double.valueOf(parts[5]);
+                    break;
+                default:
+                    value = parts[5];
+            }
+            return new Object[]{value, id};
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Part of a cursor identifying the query it pages through: orderBy, direction and a hash of the search
+     */
+    private static String query(String search, String orderBy, boolean asc) {
+        String term = search == null ? "" : search;
+        return orderBy + ":" + (asc ? "a" : "d") + ":" + Integer.toHexString(term.hashCode());
+    }
+}
@@ -0,0 +1,49 @@
+package com.gii.midapp.xmlrpc.query;
+
+import com.gii.midapp.xmlrpc.OdooLoadRunner;
+import com.gii.midapp.xmlrpc.OdooTestSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test of LocationQuery against the stub server
+ * Description: Runs against the stub like PartnerControllerLoadTest, so both share one application
+ * context. Lookups pick random ids and terms, repeated ones are served by the query cache
+ * the way they would be in production.
+ * Run with: mvn test -Dgroups=load
+ */
+@Tag("load")
+@OdooTestSupport.StubApplicationTest
+class LocationQueryLoadTest {
+    private static final int LOCATIONS = 100; // odoo.stub.seed.locations default
+
+    @Autowired
+    private LocationQuery locationQuery;
+
+    @Test
+    void getPagedLocations() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("getPagedLocations", () ->
+                locationQuery.getPagedLocations(null, ThreadLocalRandom.current().nextInt(10), 10, "name", true)));
+    }
+
+    @Test
+    void getLocationsByCursor() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("getLocationsByCursor", () ->
+                locationQuery.getLocationsByCursor(null, null, 20, "id", true)));
+    }
+
+    @Test
+    void searchLocation() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("searchLocation", () ->
+                locationQuery.searchLocation("Location " + ThreadLocalRandom.current().nextInt(1, LOCATIONS + 1))));
+    }
+
+    @Test
+    void getLocationById() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("getLocationById", () ->
+                locationQuery.getLocationById((long) ThreadLocalRandom.current().nextInt(1, LOCATIONS + 1))));
+    }
+}
@@ -0,0 +1,93 @@
+package com.gii.midapp.controller;
+
+import com.gii.midapp.base.BaseResponse;
+import com.gii.midapp.model.response.LocationListResponse;
+import com.gii.midapp.xmlrpc.query.LocationReactiveQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Location reads answered without holding a request thread while Odoo works
+ */
+@RestController
+@RequestMapping("/reactive/location")
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class LocationReactiveController {
+    @Autowired
+    LocationReactiveQuery locationReactiveQuery;
+    @Value("${odoo.export.chunk-size:500}")
+    Integer defaultChunkSize;
+
+    /**
+     * Get a page of locations
+     *
+     * @param search    Search term on the name (optional)
+     * @param page      Page number, starting at 0
+     * @param limit     Page size
+     * @param orderBy   Field to sort on
+     * @param asc       Sort direction
+     * @return Page of locations
+     */
+    @GetMapping("/")
+    public Mono<ResponseEntity<BaseResponse>> getPagedLocations(@RequestParam(value = "search", required = false) String search,
+                                                               @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                               @RequestParam(value = "limit", defaultValue = "10") Integer limit,
+                                                               @RequestParam(value = "orderBy", defaultValue = "id") String orderBy,
+                                                               @RequestParam(value = "asc", defaultValue = "false") Boolean asc) {
+        return locationReactiveQuery.getPagedLocations(search, page, limit, orderBy, asc)
+                .map(locations -> {
+                    BaseResponse resp = new BaseResponse();
+                    resp.setMessage("Data ditemukan");
+                    resp.setData(locations);
+                    return new ResponseEntity<>(resp, HttpStatus.OK);
+                });
+    }
+
+    /**
+     * Get a location with its divisions
+     *
+     * @param id    Location id
+     * @return Location
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<BaseResponse>> getLocationById(@PathVariable("id") Long id) {
+        return locationReactiveQuery.getLocationById(id)
+                .map(location -> {
+                    BaseResponse resp = new BaseResponse();
+                    resp.setMessage("Data ditemukan");
+                    resp.setData(location);
+                    return new ResponseEntity<>(resp, HttpStatus.OK);
+                })
+                .defaultIfEmpty(notFound());
+    }
+
+    /**
+     * Export every location as NDJSON (one JSON object per line)
+     * Description: Each location is written as soon as it is read, the next chunk is only
+     * read from Odoo once the client took the previous one
+     *
+     * @param chunkSize     Locations per Odoo call (optional)
+     * @return NDJSON stream of locations
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public Flux<LocationListResponse> exportLocations(@RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        int size = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        return locationReactiveQuery.streamLocations(size);
+    }
+
+    private ResponseEntity<BaseResponse> notFound() {
+        BaseResponse resp = new BaseResponse();
+        resp.setMessage("Data tidak ditemukan");
+        return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
+    }
+}
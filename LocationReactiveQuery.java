@@ -0,0 +1,140 @@
+package com.gii.midapp.xmlrpc.query;
+
+import com.gii.midapp.model.response.LocationListResponse;
+import com.gii.midapp.model.response.LocationResponse;
+import com.gii.midapp.xmlrpc.OdooConfig;
+import com.gii.midapp.xmlrpc.OdooReactiveClientApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of LocationQuery
+ * Description: Same reads as LocationQuery, composed on OdooReactiveClientApi instead of
+ * waiting on the executor. Results are not cached, the cache of LocationQuery is filled
+ * and invalidated by the blocking calls
+ */
+@Component
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class LocationReactiveQuery {
+    private static final List<Object> LOCATION_FIELDS = Arrays.asList("id", "name", "company_id", "division_ids", "create_date", "write_date");
+    private static final List<Object> DIVISION_FIELDS = Arrays.asList("id", "name", "create_date", "write_date");
+
+    @Autowired
+    private OdooReactiveClientApi odooReactiveClientApi;
+
+    /**
+     * Get a page of locations with the total count
+     * Description: search_count and search_read are sent at the same time
+     *
+     * @param search    Search term on the name, optional
+     * @param page      Page number, starting at 0
+     * @param limit     Page size
+     * @param orderBy   Field to sort on
+     * @param asc       Sort direction
+     * @return Mono     The locations of the page
+     */
+    public Mono<Page<LocationListResponse>> getPagedLocations(String search, Integer page, Integer limit, String orderBy, Boolean asc) {
+        Sort sortBy = asc ? Sort.by(orderBy).ascending() : Sort.by(orderBy).descending();
+        Pageable pageableRequest = PageRequest.of(page, limit, sortBy);
+
+        // Create the domain
+        List<Object> domain = new ArrayList<>();
+        domain.add(Arrays.asList("id", ">", 0));
+
+        // Apply the search term if it is not empty
+        if (search != null && !search.isEmpty()) {
+            domain.add(Arrays.asList("name", "ilike", search));
+        }
+
+        Mono<Integer> count = odooReactiveClientApi.searchCount(OdooConfig.RES_LOCATION, Arrays.asList(domain));
+        Mono<List<Object>> rows = odooReactiveClientApi.searchAndRead(OdooConfig.RES_LOCATION, Arrays.asList(
+                domain,
+                LOCATION_FIELDS,
+                page * limit,
+                limit,
+                orderBy + (asc ? " asc" : " desc")
+        ));
+        return Mono.zip(rows, count)
+                .map(result -> new PageImpl<>(LocationListResponse.fromOdooResponseMapper(result.getT1()), pageableRequest, result.getT2()));
+    }
+
+    /**
+     * Get a location with its divisions
+     *
+     * @param id    Location id
+     * @return Mono The location, empty when it doesn't exist
+     */
+    public Mono<LocationResponse> getLocationById(Long id) {
+        return getLocationsByIds(Collections.singletonList(id)).next();
+    }
+
+    /**
+     * Get several locations with their divisions
+     * Description: The locations are read in one search_read, then the divisions of all of
+     * them in one more search_read once the locations arrived
+     *
+     * @param ids   Location ids, duplicates are ignored
+     * @return Flux The locations found
+     */
+    public Flux<LocationResponse> getLocationsByIds(List<Long> ids) {
+        List<Object> odooIds = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            // Long to Integer because Odoo only accepts Integer
+            odooIds.add(Math.toIntExact(id));
+        }
+
+        return odooReactiveClientApi.searchAndRead(OdooConfig.RES_LOCATION, Arrays.asList(
+                        Arrays.asList(Arrays.asList("id", "in", odooIds)),
+                        LOCATION_FIELDS
+                ))
+                .flatMap(resp -> {
+                    // Collect the division ids of every location, shared divisions only once
+                    Set<Long> divisionIds = new LinkedHashSet<>();
+                    for (Object obj : resp) {
+                        divisionIds.addAll(LocationResponse.divisionIds((Map<String, Object>) obj));
+                    }
+                    if (divisionIds.isEmpty()) {
+                        return Mono.just(LocationResponse.fromOdooResponseListMapper(resp, Collections.emptyMap()));
+                    }
+                    List<Object> odooDivisionIds = new ArrayList<>(divisionIds.size());
+                    for (Long divisionId : divisionIds) {
+                        odooDivisionIds.add(Math.toIntExact(divisionId));
+                    }
+                    return odooReactiveClientApi.searchAndRead(OdooConfig.RES_DIVISION, Arrays.asList(
+                                    Arrays.asList(Arrays.asList("id", "in", odooDivisionIds)),
+                                    DIVISION_FIELDS
+                            ))
+                            .map(divisions -> LocationResponse.fromOdooResponseListMapper(resp, LocationResponse.divisionsFromOdooResponse(divisions)));
+                })
+                .flatMapIterable(locations -> locations);
+    }
+
+    /**
+     * Stream every location in id order
+     * Description: A chunk is only read from Odoo once the subscriber consumed the previous
+     * one, a slow client holds back the reads instead of filling memory
+     *
+     * @param chunkSize Locations per Odoo call
+     * @return Flux     The locations
+     */
+    public Flux<LocationListResponse> streamLocations(Integer chunkSize) {
+        return odooReactiveClientApi.streamPages(OdooConfig.RES_LOCATION, new ArrayList<>(), LOCATION_FIELDS, chunkSize)
+                .concatMapIterable(LocationListResponse::fromOdooResponseMapper, 1);
+    }
+}
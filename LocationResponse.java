@@ -1,64 +1,137 @@
-package com.gii.midapp.model.response;
-
-import com.gii.midapp.base.BaseOdooResponse;
-import lombok.Getter;
-import lombok.Setter;
-
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-
-@Getter @Setter
-public class LocationResponse extends BaseOdooResponse {
-    private Long companyId;
-    private String companyName;
-    private List<DivisionResponse> divisions;
-
-    public LocationResponse(Long id, String name, Date createdAt, Date updatedAt, Long companyId, String companyName, List<DivisionResponse> divisions) {
-        super(id, name, createdAt, updatedAt);
-        this.companyId = companyId;
-        this.companyName = companyName;
-        this.divisions = divisions;
-    }
-
-    public static LocationResponse fromOdooResponseMapper(List<Object> odooResponse, List<Object> odooResponseDivisions) {
-        LocationResponse locationResponse = null;
-        for (Object obj : odooResponse) {
-            Map<String, Object> map = (Map<String, Object>) obj;
-
-            Long companyId = null;
-            String companyName = null;
-            // Need Boolean check because sometimes the company_id is false from the response
-            if (!(map.get("company_id") instanceof Boolean)) {
-                Object[] companyIdObj = (Object[]) map.get("company_id");
-                companyId = Long.parseLong(companyIdObj[0].toString());
-                companyName = companyIdObj[1].toString();
-            }
-
-            List<DivisionResponse> divisions = new ArrayList<>();
-            for (Object objDivision : odooResponseDivisions) {
-                Map<String, Object> mapDivision = (Map<String, Object>) objDivision;
-
-                DivisionResponse divisionResponse = new DivisionResponse(
-                        Long.parseLong(mapDivision.get("id").toString()),
-                        mapDivision.get("name").toString(),
-                        stringToDate(mapDivision.get("create_date").toString()),
-                        stringToDate(mapDivision.get("write_date").toString())
-                );
-                divisions.add(divisionResponse);
-            }
-
-            locationResponse = new LocationResponse(
-                    Long.parseLong(map.get("id").toString()),
-                    map.get("name").toString(),
-                    stringToDate(map.get("create_date").toString()),
-                    stringToDate(map.get("write_date").toString()),
-                    companyId,
-                    companyName,
-                    divisions
-            );
-        }
-        return locationResponse;
-    }
-}
+package com.gii.midapp.model.response;
+
+import com.gii.midapp.base.BaseOdooResponse;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter
+public class LocationResponse extends BaseOdooResponse {
+    private Long companyId;
+    private String companyName;
+    private List<DivisionResponse> divisions;
+
+    public LocationResponse(Long id, String name, Date createdAt, Date updatedAt, Long companyId, String companyName, List<DivisionResponse> divisions) {
+        super(id, name, createdAt, updatedAt);
+        this.companyId = companyId;
+        this.companyName = companyName;
+        this.divisions = divisions;
+    }
+
+    public static LocationResponse fromOdooResponseMapper(List<Object> odooResponse, List<Object> odooResponseDivisions) {
+        LocationResponse locationResponse = null;
+        // The divisions don't depend on the location, map them only once
+        List<DivisionResponse> divisions = new ArrayList<>(divisionsFromOdooResponse(odooResponseDivisions).values());
+        for (Object obj : odooResponse) {
+            Map<String, Object> map = (Map<String, Object>) obj;
+
+            Long companyId = null;
+            String companyName = null;
+            // Need Boolean check because sometimes the company_id is false from the response
+            if (!(map.get("company_id") instanceof Boolean)) {
+                Object[] companyIdObj = (Object[]) map.get("company_id");
+                companyId = ((Number) companyIdObj[0]).longValue();
+                companyName = companyIdObj[1].toString();
+            }
+
+            locationResponse = new LocationResponse(
+                    ((Number) map.get("id")).longValue(),
+                    map.get("name").toString(),
+                    stringToDate(map.get("create_date").toString()),
+                    stringToDate(map.get("write_date").toString()),
+                    companyId,
+                    companyName,
+                    divisions
+            );
+        }
+        return locationResponse;
+    }
+
+    /**
+     * Map several locations, each with its own divisions
+     * Description: Divisions are looked up by id from an index instead of scanning
+     * every division for every location
+     *
+     * @param odooResponse      Locations returned by search_read
+     * @param divisionsById     Divisions of all the locations, keyed by id
+     * @return List             One LocationResponse per location, in the order of odooResponse
+     */
+    public static List<LocationResponse> fromOdooResponseListMapper(List<Object> odooResponse, Map<Long, DivisionResponse> divisionsById) {
+        List<LocationResponse> result = new ArrayList<>(odooResponse.size());
+        for (Object obj : odooResponse) {
+            Map<String, Object> map = (Map<String, Object>) obj;
+
+            Long companyId = null;
+            String companyName = null;
+            // Need Boolean check because sometimes the company_id is false from the response
+            if (!(map.get("company_id") instanceof Boolean)) {
+                Object[] companyIdObj = (Object[]) map.get("company_id");
+                companyId = ((Number) companyIdObj[0]).longValue();
+                companyName = companyIdObj[1].toString();
+            }
+
+            List<Long> locationDivisionIds = divisionIds(map);
+            List<DivisionResponse> divisions = new ArrayList<>(locationDivisionIds.size());
+            for (Long divisionId : locationDivisionIds) {
+                DivisionResponse division = divisionsById.get(divisionId);
+                if (division != null) {
+                    divisions.add(division);
+                }
+            }
+
+            result.add(new LocationResponse(
+                    ((Number) map.get("id")).longValue(),
+                    map.get("name").toString(),
+                    stringToDate(map.get("create_date").toString()),
+                    stringToDate(map.get("write_date").toString()),
+                    companyId,
+                    companyName,
+                    divisions
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * Map the divisions returned by search_read
+     *
+     * @param odooResponseDivisions Divisions returned by search_read
+     * @return Map                  Divisions keyed by id, in the order of the response
+     */
+    public static Map<Long, DivisionResponse> divisionsFromOdooResponse(List<Object> odooResponseDivisions) {
+        Map<Long, DivisionResponse> divisions = new LinkedHashMap<>(odooResponseDivisions.size() * 4 / 3 + 1);
+        for (Object objDivision : odooResponseDivisions) {
+            Map<String, Object> mapDivision = (Map<String, Object>) objDivision;
+
+            Long divisionId = ((Number) mapDivision.get("id")).longValue();
+            DivisionResponse divisionResponse = new DivisionResponse(
+                    divisionId,
+                    mapDivision.get("name").toString(),
+                    stringToDate(mapDivision.get("create_date").toString()),
+                    stringToDate(mapDivision.get("write_date").toString())
+            );
+            divisions.put(divisionId, divisionResponse);
+        }
+        return divisions;
+    }
+
+    /**
+     * Read the division ids of a location returned by search_read
+     *
+     * @param map   The location
+     * @return List The division ids
+     */
+    public static List<Long> divisionIds(Map<String, Object> map) {
+        Object[] divisionIdsArray = (Object[]) map.get("division_ids");
+        List<Long> divisionIds = new ArrayList<>(divisionIdsArray.length);
+        for (Object divisionId : divisionIdsArray) {
+            divisionIds.add(((Number) divisionId).longValue());
+        }
+        return divisionIds;
+    }
+}
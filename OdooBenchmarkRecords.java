@@ -0,0 +1,69 @@
+package com.gii.midapp.xmlrpc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * search_read results shaped like the ones Odoo returns, for the benchmarks
+ * Description: Same fields and value types as the XML-RPC type factory produces: many2one as
+ * Object[]{id, name}, x2many as Object[] of ids, dates as "yyyy-MM-dd HH:mm:ss" strings
+ */
+public final class OdooBenchmarkRecords {
+    private OdooBenchmarkRecords() {
+    }
+
+    public static List<Object> partners(int count) {
+        List<Object> records = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> partner = new HashMap<>();
+            partner.put("id", i);
+            partner.put("name", "Partner " + i);
+            partner.put("phone", String.format("+62 21 %07d", i));
+            partner.put("mobile", i % 2 == 0);
+            partner.put("email", "partner" + i + "@example.com");
+            partner.put("website", "https://partner" + i + ".example.com");
+            partner.put("write_date", date(i));
+            records.add(partner);
+        }
+        return records;
+    }
+
+    public static List<Object> locations(int count, int divisions) {
+        List<Object> records = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> location = new HashMap<>();
+            location.put("id", i);
+            location.put("name", "Location " + i);
+            int companyId = i % 3 + 1;
+            location.put("company_id", i % 10 == 0 ? Boolean.FALSE : new Object[]{companyId, "Company " + companyId});
+            Object[] divisionIds = new Object[Math.min(3, divisions)];
+            for (int d = 0; d < divisionIds.length; d++) {
+                divisionIds[d] = (i + d) % divisions + 1;
+            }
+            location.put("division_ids", divisionIds);
+            location.put("create_date", date(i));
+            location.put("write_date", date(i + 1));
+            records.add(location);
+        }
+        return records;
+    }
+
+    public static List<Object> divisions(int count) {
+        List<Object> records = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> division = new HashMap<>();
+            division.put("id", i);
+            division.put("name", "Division " + i);
+            division.put("create_date", date(i));
+            division.put("write_date", date(i + 1));
+            records.add(division);
+        }
+        return records;
+    }
+
+    private static String date(int i) {
+        return String.format("2024-%02d-%02d %02d:%02d:%02d", i % 12 + 1, i % 28 + 1, i % 24, i % 60, (i * 7) % 60);
+    }
+}
@@ -0,0 +1,18 @@
+package com.gii.midapp.xmlrpc;
+
+import lombok.Getter;
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Binary field value (e.g. image_1920) sent to Odoo as a base64 string
+ * Description: The content is read from the source and base64 encoded while the request
+ * is written by OdooTypeFactory, so the whole file is never held as a String
+ */
+@Getter
+public class OdooBinaryValue {
+    private final InputStreamSource source;
+
+    public OdooBinaryValue(InputStreamSource source) {
+        this.source = source;
+    }
+}
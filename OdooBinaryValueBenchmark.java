@@ -0,0 +1,114 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.apache.xmlrpc.client.XmlRpcClientRequestImpl;
+import org.apache.xmlrpc.common.TypeFactory;
+import org.apache.xmlrpc.common.TypeFactoryImpl;
+import org.apache.xmlrpc.serializer.DefaultXMLWriterFactory;
+import org.apache.xmlrpc.serializer.XmlRpcWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.xml.sax.ContentHandler;
+
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Allocation per partner image upload, before and after OdooBinaryValue
+ * Description: Writes the XML-RPC create request of a partner with an image of the given size
+ * to a discarding stream. base64String is the former path, the whole file read with getBytes()
+ * and base64 encoded into a String; streamed is the OdooBinaryValue path of OdooTypeFactory.
+ * Compare gc.alloc.rate.norm, the bytes allocated per upload.
+ * Run with: java -cp target/test-classes:... com.gii.midapp.xmlrpc.OdooBinaryValueBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OdooBinaryValueBenchmark {
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"102400", "2097152", "10485760"})
+    private int imageBytes;
+
+    private MockMultipartFile file;
+    private XmlRpcClientConfigImpl config;
+    private TypeFactory defaultTypeFactory;
+    private TypeFactory odooTypeFactory;
+
+    @Setup
+    public void setUp() {
+        byte[] image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+        file = new MockMultipartFile("file", "partner.png", "image/png", image);
+        config = new XmlRpcClientConfigImpl();
+        XmlRpcClient client = new XmlRpcClient();
+        defaultTypeFactory = new TypeFactoryImpl(client);
+        odooTypeFactory = new OdooTypeFactory(client);
+    }
+
+    @Benchmark
+    public void base64String() throws Exception {
+        Map<String, Object> data = partner();
+        data.put("image_1920", Base64.getEncoder().encodeToString(file.getBytes()));
+        write(data, defaultTypeFactory);
+    }
+
+    @Benchmark
+    public void streamed() throws Exception {
+        Map<String, Object> data = partner();
+        data.put("image_1920", new OdooBinaryValue(file));
+        write(data, odooTypeFactory);
+    }
+
+    private static Map<String, Object> partner() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Partner");
+        data.put("email", "partner@example.com");
+        return data;
+    }
+
+    private void write(Map<String, Object> data, TypeFactory typeFactory) throws Exception {
+        ContentHandler handler = new DefaultXMLWriterFactory().getXmlWriter(config, DISCARD);
+        new XmlRpcWriter(config, handler, typeFactory).write(new XmlRpcClientRequestImpl(config, "execute_kw",
+                asList("db", 2, "password", "res.partner", "create", asList(data))));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OdooBinaryValueBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,306 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooUnavailableException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the number of calls sent to the Odoo instance at the same time
+ * Description: Odoo has a fixed number of workers, past them calls only queue inside Odoo and get
+ * slower for everyone. When adaptive, the limit is learnt from the latency of the calls (gradient):
+ * each operation keeps its no-load latency per order of magnitude of the records it returned, so a
+ * page of thousands of rows is not compared with a one-row lookup. While calls take about as long
+ * as that the limit grows by its square root, once they take more than the tolerance times longer
+ * it shrinks in proportion. Only calls made while the bulkhead is at least half full move the limit:
+ * below that, Odoo is not what the limit protects it from. Calls that time out or can't reach
+ * Odoo cut the limit by 10%.
+ * Waiting interactive calls take free slots before bulk ones, and bulk calls only use a share
+ * of the limit so interactive calls always find room. Blocking and non-blocking callers wait
+ * in the same queues: a waiting call is a permit completed when its slot is granted
+ */
+public class OdooBulkhead {
+    private static final double SMOOTHING = 0.2;   // Weight of a new limit estimate
+    private static final double DROP_BACKOFF = 0.9; // Limit kept after a call failed to reach Odoo
+
+    private final int minConcurrentCalls;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final boolean adaptive;
+    private final double bulkShare;
+    private final double rttTolerance;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Map<String, Long> baselines = new HashMap<>(); // Operation to no-load latency in nanos, guarded by lock
+    private double limit;                  // Guarded by lock
+    private double latencyRatio = 1.0;     // Smoothed latency over no-load latency, guarded by lock
+    private int inFlight;                  // Guarded by lock
+    private final Deque<CompletableFuture<Void>> waitingInteractive = new ArrayDeque<>(); // Guarded by lock
+    private final Deque<CompletableFuture<Void>> waitingBulk = new ArrayDeque<>();        // Guarded by lock
+
+    /**
+     * Constructor
+     *
+     * @param minConcurrentCalls    Lowest limit the adaptive limit goes down to
+     * @param maxConcurrentCalls    Highest limit, and the starting one
+     * @param maxWaitMillis         Max time in milliseconds a call waits for a free slot
+     * @param adaptive              Learn the limit from the latency, false keeps it at maxConcurrentCalls
+     * @param bulkShare             Share of the limit bulk calls may use, between 0 and 1
+     * @param rttTolerance          Latency over the no-load latency tolerated before the limit shrinks
+     */
+    public OdooBulkhead(int minConcurrentCalls, int maxConcurrentCalls, long maxWaitMillis,
+                        boolean adaptive, double bulkShare, double rttTolerance) {
+        this.minConcurrentCalls = Math.max(1, Math.min(minConcurrentCalls, maxConcurrentCalls));
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.adaptive = adaptive;
+        this.bulkShare = bulkShare;
+        this.rttTolerance = rttTolerance;
+        this.limit = maxConcurrentCalls;
+    }
+
+    /**
+     * Wait for a free slot
+     * Description: Fails instead of queueing forever when Odoo is saturated,
+     * and gives up as soon as the calling thread is interrupted (e.g. a cancelled request)
+     *
+     * @param operation Name of the operation, for the error message
+     * @param priority  Priority of the call
+     */
+    public void acquire(String operation, OdooCallPriority priority) {
+        CompletableFuture<Void> permit = acquireAsync(priority);
+        try {
+            permit.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            if (cancel(permit)) {
+                throw new OdooUnavailableException("Too many concurrent Odoo calls, " + operation + " rejected after " + maxWaitMillis + " ms");
+            }
+            // Granted while timing out, the slot is ours
+        } catch (InterruptedException ie) {
+            if (!cancel(permit)) {
+                release();
+            }
+            Thread.currentThread().interrupt();
+            throw new OdooUnavailableException("Interrupted while waiting to call " + operation, ie);
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException(ee); // Permits are only ever completed normally
+        }
+    }
+
+    /**
+     * Ask for a free slot without blocking
+     * Description: The permit completes once the slot is granted, in the same order and with
+     * the same priorities as the blocking acquire. Callers that stop waiting (timeout, cancel)
+     * call cancel, and release the slot when cancel says it was already granted
+     *
+     * @param priority                  Priority of the call
+     * @return CompletableFuture<Void>  Completes when the call may be sent
+     */
+    public CompletableFuture<Void> acquireAsync(OdooCallPriority priority) {
+        boolean interactive = priority == OdooCallPriority.INTERACTIVE;
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        lock.lock();
+        try {
+            Deque<CompletableFuture<Void>> queue = interactive ? waitingInteractive : waitingBulk;
+            if (queue.isEmpty() && canEnter(interactive)) {
+                inFlight++;
+                permit.complete(null); // No dependents yet, nothing runs under the lock
+            } else {
+                queue.add(permit);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return permit;
+    }
+
+    /**
+     * Stop waiting for a slot
+     *
+     * @param permit    Permit returned by acquireAsync
+     * @return boolean  true when the permit was still waiting, false when the slot was
+     *                  already granted and must be released by the caller
+     */
+    public boolean cancel(CompletableFuture<Void> permit) {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            if (!waitingInteractive.remove(permit) && !waitingBulk.remove(permit)) {
+                return false;
+            }
+            granted = grantWaiting(); // Bulk calls may have been held back for this one
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+        return true;
+    }
+
+    /**
+     * Free the slot of a call that was not sent or whose latency says nothing about Odoo's load
+     */
+    public void release() {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            granted = grantWaiting();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Free the slot of a call and adjust the limit to its outcome
+     *
+     * @param operation Model and method of the call, latencies are compared per operation
+     * @param rows      Records the call returned (see rowsOf), latencies are compared per order of magnitude
+     * @param nanos     Time the call took
+     * @param dropped   true when the call timed out or could not reach Odoo
+     */
+    public void release(String operation, int rows, long nanos, boolean dropped) {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            if (adaptive) {
+                if (dropped) {
+                    limit = Math.max(minConcurrentCalls, limit * DROP_BACKOFF);
+                } else {
+                    onSample(operation + "#" + sizeClass(rows), nanos);
+                }
+            }
+            inFlight--;
+            granted = grantWaiting();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Move the limit toward the estimate given by the latency of a call
+     */
+    private void onSample(String sampleKey, long nanos) {
+        long sample = Math.max(1, nanos);
+        Long baseline = baselines.get(sampleKey);
+        // Follow a faster call at once, a slower one very slowly, so a lasting slowdown of Odoo becomes the new normal
+        baseline = baseline == null || sample < baseline ? sample : baseline + (sample - baseline) / 1000;
+        baselines.put(sampleKey, baseline);
+
+        latencyRatio = latencyRatio * (1 - SMOOTHING) + (double) sample / baseline * SMOOTHING;
+        if (inFlight < limit / 2) {
+            return; // Far below the limit, a slow call is not caused by the concurrency and says nothing about a higher one
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance / latencyRatio));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minConcurrentCalls, Math.min(maxConcurrentCalls, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+
+    /**
+     * Order of magnitude of a number of records, by powers of 4: 0, 1 to 3, 4 to 15, 16 to 63...
+     */
+    private static int sizeClass(int rows) {
+        return rows <= 0 ? 0 : (33 - Integer.numberOfLeadingZeros(rows)) / 2;
+    }
+
+    /**
+     * Size of the result of a call, for release
+     *
+     * @param result    Result of execute_kw, an Object[] or a List of mapped records for a search_read
+     * @return int      Number of records, 1 for any other result
+     */
+    static int rowsOf(Object result) {
+        if (result instanceof Object[]) {
+            return ((Object[]) result).length;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 1;
+    }
+
+    private boolean canEnter(boolean interactive) {
+        int currentLimit = (int) limit;
+        if (interactive) {
+            return inFlight < currentLimit;
+        }
+        return waitingInteractive.isEmpty() && inFlight < Math.max(1, (int) (currentLimit * bulkShare));
+    }
+
+    /**
+     * Hand the free slots to the waiting calls, interactive first, in arrival order
+     * Description: Called under the lock, the permits are completed by complete once unlocked
+     * since completing them runs the waiting callers' continuations
+     */
+    private List<CompletableFuture<Void>> grantWaiting() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        while (!waitingInteractive.isEmpty() && canEnter(true)) {
+            granted.add(waitingInteractive.poll());
+            inFlight++;
+        }
+        while (!waitingBulk.isEmpty() && canEnter(false)) {
+            granted.add(waitingBulk.poll());
+            inFlight++;
+        }
+        return granted;
+    }
+
+    private static void complete(List<CompletableFuture<Void>> granted) {
+        for (CompletableFuture<Void> permit : granted) {
+            permit.complete(null);
+        }
+    }
+
+    /**
+     * @return long Max time in milliseconds a call waits for a free slot
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @return int  Number of calls waiting for a slot
+     */
+    public int getWaitingCalls() {
+        lock.lock();
+        try {
+            return waitingInteractive.size() + waitingBulk.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return int  Number of calls currently sent to Odoo
+     */
+    public int getInFlightCalls() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return int  Current max number of calls sent to Odoo at the same time
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
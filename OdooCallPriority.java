@@ -0,0 +1,35 @@
+package com.gii.midapp.xmlrpc;
+
+/**
+ * Priority of the Odoo calls made by the current thread
+ * Description: Calls are INTERACTIVE unless the thread entered BULK. When Odoo can't take more
+ * calls, waiting interactive calls go first and bulk calls never take the whole concurrency limit.
+ * OdooTaskExecutor hands the priority of the submitting thread over to its tasks
+ */
+public enum OdooCallPriority {
+    INTERACTIVE, // Answers a request someone is waiting for
+    BULK;        // Background sync, index loads, queued writes and exports
+
+    private static final ThreadLocal<OdooCallPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    /**
+     * @return OdooCallPriority  Priority of the calls made by the current thread
+     */
+    public static OdooCallPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Set the priority of the calls made by the current thread
+     * Description: Threads that are not owned by the caller must get the previous priority back
+     * once done, e.g. previous = enter(BULK); try { ... } finally { enter(previous); }
+     *
+     * @param priority              Priority of the next calls
+     * @return OdooCallPriority     The previous priority
+     */
+    public static OdooCallPriority enter(OdooCallPriority priority) {
+        OdooCallPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        return previous;
+    }
+}
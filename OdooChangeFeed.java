@@ -0,0 +1,294 @@
+package com.gii.midapp.xmlrpc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Background sync that learns what changed in Odoo from write_date
+ * Description: Every interval each model is read page by page, keyset on (write_date, id), from
+ * an overlap window before its watermark, and an OdooModelChangedEvent with the changed ids is
+ * published for every page, so the query cache and the partner search index follow changes made
+ * outside this service. The window catches writes a strict keyset would skip: a same-second
+ * write with a lower id, or a transaction committed after the watermark passed its write_date.
+ * Rows read again in the window are published only once per (id, write_date).
+ * Watermarks are saved to a file after every page, a restart resumes from them.
+ * A model without a watermark starts from its current newest write_date instead of a full scan.
+ * Deletions don't touch write_date and are only seen through this service's own events
+ */
+@Slf4j
+@Component
+public class OdooChangeFeed implements DisposableBean {
+    private static final List<String> MODELS = asList("res.partner", OdooConfig.RES_LOCATION, OdooConfig.RES_DIVISION);
+    private static final DateTimeFormatter WRITE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OdooClientApi odooClientApi;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long interval;
+    private final int pageSize;
+    private final long overlap;
+    private final Path watermarkFile;
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, String>> seen = new HashMap<>(); // write_date published per id within the window, feed thread only
+    private final ScheduledExecutorService scheduler;
+    private volatile long lastSuccess = System.currentTimeMillis();
+
+    /**
+     * Constructor
+     *
+     * @param odooClientApi     Client used to read the changes
+     * @param eventPublisher    Publisher of the change events
+     * @param metrics           Exposes the time since the last complete poll
+     * @param enabled           Run the sync
+     * @param interval          Time in milliseconds between two polls
+     * @param pageSize          Records read per call
+     * @param overlap           Time in milliseconds before the watermark read again on every poll,
+     *                          longer than the slowest Odoo transaction writing these models
+     * @param watermarkFile     File the watermarks are saved to
+     */
+    @Autowired
+    public OdooChangeFeed(OdooClientApi odooClientApi,
+                          ApplicationEventPublisher eventPublisher,
+                          OdooMetrics metrics,
+                          @Value("${odoo.sync.enabled:false}") boolean enabled,
+                          @Value("${odoo.sync.interval:5000}") long interval,
+                          @Value("${odoo.sync.page-size:500}") int pageSize,
+                          @Value("${odoo.sync.overlap:60000}") long overlap,
+                          @Value("${odoo.sync.watermark-file:odoo-sync-watermarks.properties}") String watermarkFile) {
+        this.odooClientApi = odooClientApi;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.pageSize = pageSize;
+        this.overlap = overlap;
+        this.watermarkFile = Paths.get(watermarkFile);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "odoo-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metrics.gauge("odoo.sync.lag", "Seconds since the change feed last polled every model", this,
+                feed -> (System.currentTimeMillis() - feed.lastSuccess) / 1000.0);
+    }
+
+    /**
+     * Start polling once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        loadWatermarks();
+        scheduler.scheduleWithFixedDelay(this::poll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Poll every model, a model that fails is tried again on the next poll
+     * Description: Nothing may escape, an exception would cancel the schedule
+     */
+    private void poll() {
+        OdooCallPriority.enter(OdooCallPriority.BULK); // The feed owns its thread
+        boolean complete = true;
+        for (String model : MODELS) {
+            try {
+                pollModel(model);
+            } catch (RuntimeException | IOException e) {
+                complete = false;
+                log.warn("Change feed of {} failed: {}", model, e.getMessage());
+            }
+        }
+        if (complete) {
+            lastSuccess = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Read the records of a model changed since its watermark, minus the overlap window
+     *
+     * @param model Model name
+     */
+    private void pollModel(String model) throws IOException {
+        Watermark watermark = watermarks.get(model);
+        if (watermark == null) {
+            watermark = newestWatermark(model);
+            watermarks.put(model, watermark);
+            saveWatermarks();
+            return;
+        }
+
+        String from = watermark.writeDate == null ? null : minusOverlap(watermark.writeDate);
+        Map<Integer, String> published = seen.computeIfAbsent(model, m -> new HashMap<>());
+        if (from != null) {
+            // Rows older than the window are never read again, which bounds the set
+            published.values().removeIf(writeDate -> writeDate.compareTo(from) < 0);
+        }
+
+        Watermark position = null; // Last row read by this poll
+        List<Object> rows;
+        do {
+            List<Object> domain = new ArrayList<>();
+            if (from == null) {
+                domain.add(asList("id", ">", position == null ? watermark.id : position.id));
+            } else {
+                domain.add(asList("write_date", ">=", from));
+                if (position != null) {
+                    // Past the previous page: a later write_date, or the same one with a greater id
+                    domain.add("|");
+                    domain.add(asList("write_date", ">", position.writeDate));
+                    domain.add("&");
+                    domain.add(asList("write_date", "=", position.writeDate));
+                    domain.add(asList("id", ">", position.id));
+                }
+            }
+            rows = odooClientApi.searchAndRead(model, asList(
+                    domain,
+                    asList("id", "write_date"),
+                    0,
+                    pageSize,
+                    "write_date asc, id asc"
+            ));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Integer> ids = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Map<String, Object> map = (Map<String, Object>) row;
+                Integer id = ((Number) map.get("id")).intValue();
+                String writeDate = String.valueOf(map.get("write_date"));
+                if (!writeDate.equals(published.put(id, writeDate))) {
+                    ids.add(id);
+                }
+            }
+            if (!ids.isEmpty()) {
+                eventPublisher.publishEvent(new OdooModelChangedEvent(model, ids, false));
+            }
+
+            Map<String, Object> last = (Map<String, Object>) rows.get(rows.size() - 1);
+            position = new Watermark(String.valueOf(last.get("write_date")), ((Number) last.get("id")).intValue());
+            if (position.isAfter(watermark)) {
+                watermark = position;
+                watermarks.put(model, watermark);
+                saveWatermarks();
+            }
+        } while (rows.size() == pageSize);
+    }
+
+    /**
+     * Start of the overlap window
+     *
+     * @param writeDate Odoo write_date, yyyy-MM-dd HH:mm:ss in UTC
+     * @return String   The write_date overlap milliseconds earlier, in the same format
+     */
+    private String minusOverlap(String writeDate) {
+        // Odoo may add microseconds, the window doesn't need them
+        LocalDateTime date = LocalDateTime.parse(writeDate.substring(0, 19), WRITE_DATE_FORMAT);
+        return date.minusNanos(overlap * 1_000_000L).format(WRITE_DATE_FORMAT);
+    }
+
+    /**
+     * Get the watermark of the most recently written record of a model
+     *
+     * @param model         Model name
+     * @return Watermark    The newest write_date and its id, an empty watermark if the model has no records
+     */
+    private Watermark newestWatermark(String model) {
+        List<Object> rows = odooClientApi.searchAndRead(model, asList(
+                new ArrayList<>(),
+                asList("id", "write_date"),
+                0,
+                1,
+                "write_date desc, id desc"
+        ));
+        if (rows.isEmpty()) {
+            return new Watermark(null, 0);
+        }
+        Map<String, Object> newest = (Map<String, Object>) rows.get(0);
+        return new Watermark(String.valueOf(newest.get("write_date")), ((Number) newest.get("id")).intValue());
+    }
+
+    /**
+     * Read the saved watermarks, stored as model=write_date|id
+     */
+    private void loadWatermarks() throws IOException {
+        if (!Files.exists(watermarkFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(watermarkFile)) {
+            properties.load(in);
+        }
+        for (String model : properties.stringPropertyNames()) {
+            String value = properties.getProperty(model);
+            int separator = value.lastIndexOf('|');
+            String writeDate = value.substring(0, separator);
+            watermarks.put(model, new Watermark(writeDate.isEmpty() ? null : writeDate, Integer.parseInt(value.substring(separator + 1))));
+        }
+    }
+
+    /**
+     * Save the watermarks to a temporary file moved over the previous one,
+     * so a crash while writing never leaves a truncated file
+     */
+    private void saveWatermarks() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Watermark> entry : watermarks.entrySet()) {
+            Watermark watermark = entry.getValue();
+            properties.setProperty(entry.getKey(), (watermark.writeDate == null ? "" : watermark.writeDate) + "|" + watermark.id);
+        }
+        Path directory = watermarkFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "odoo-sync", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "Odoo change feed watermarks");
+        }
+        Files.move(temporary, watermarkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class Watermark {
+        private final String writeDate; // null while the model has no records
+        private final int id;
+
+        private Watermark(String writeDate, int id) {
+            this.writeDate = writeDate;
+            this.id = id;
+        }
+
+        private boolean isAfter(Watermark other) {
+            if (other.writeDate == null) {
+                return writeDate != null || id > other.id;
+            }
+            int byDate = writeDate.compareTo(other.writeDate);
+            return byDate > 0 || byDate == 0 && id > other.id;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooUnavailableException;
+
+public class OdooCircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Constructor
+     *
+     * @param failureThreshold  Consecutive failed calls that open the circuit
+     * @param openMillis        Time in milliseconds the circuit stays open before a trial call is let through
+     */
+    public OdooCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Check that a call may be sent
+     * Description: While the circuit is open calls fail immediately instead of waiting on
+     * an unhealthy Odoo. Once openMillis has passed a single trial call is let through,
+     * its outcome closes or re-opens the circuit
+     *
+     * @param operation Name of the operation, for the error message
+     */
+    public synchronized void acquirePermission(String operation) {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                throw new OdooUnavailableException("Odoo circuit breaker is open, " + operation + " rejected");
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                throw new OdooUnavailableException("Odoo circuit breaker is half open, " + operation + " rejected");
+            }
+            trialInFlight = true;
+        }
+    }
+
+    /**
+     * Record a call that reached Odoo, including calls answered with a fault
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Record a call that failed to reach Odoo (I/O error, timeout, HTTP error)
+     */
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Forget a permitted call that was cancelled before its outcome was known
+     * Description: Neither a success nor a failure, but a cancelled trial call must not keep
+     * the circuit half open forever
+     */
+    public synchronized void onCancel() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
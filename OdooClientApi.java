@@ -1,259 +1,673 @@
-package com.gii.midapp.xmlrpc;
-
-import org.apache.xmlrpc.XmlRpcException;
-import org.apache.xmlrpc.client.XmlRpcClient;
-import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.net.URL;
-import java.util.*;
-
-import static java.util.Arrays.asList;
-
-@Component
-public class OdooClientApi {
-    private final String url;
-    private final String username;
-    private final String db;
-    private final String password;
-    private int uid;
-    private XmlRpcClientConfigImpl commonConfig; // Global variable for common server configuration
-    private XmlRpcClientConfigImpl modelsConfig; // Global variable for models server configuration
-
-    /**
-     * Constructor
-     *
-     * @param url       URL of the Odoo server
-     * @param db        Database name
-     * @param username  Username
-     * @param password  Password
-     */
-    @Autowired
-    public OdooClientApi(@Value("${odoo.datasource.url}") String url,
-                         @Value("${odoo.datasource.db}") String db,
-                         @Value("${odoo.datasource.username}") String username,
-                         @Value("${odoo.datasource.password}") String password) {
-        this.db = db;
-        this.username = username;
-        this.password = password;
-        this.url = url;
-        this.commonConfig = createCommonConfig(); // Create the common server configuration
-        this.modelsConfig = createModelsConfig(); // Create the models server configuration
-        authenticate();
-    }
-
-    /**
-     * Create the common server configuration
-     *
-     * @return config  The common server configuration
-     */
-    private XmlRpcClientConfigImpl createCommonConfig() {
-        try {
-            XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
-            config.setServerURL(new URL(url + "/xmlrpc/2/common"));
-            return config;
-        } catch (Exception e) {
-            throw new RuntimeException("Error while creating common config", e);
-        }
-    }
-
-    /**
-     * Create the models server configuration
-     *
-     * @return config  The models server configuration
-     */
-    private XmlRpcClientConfigImpl createModelsConfig() {
-        try {
-            XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
-            config.setServerURL(new URL(url + "/xmlrpc/2/object"));
-            return config;
-        } catch (Exception e) {
-            throw new RuntimeException("Error while creating models config", e);
-        }
-    }
-
-    /**
-     * Authenticate to the Odoo server
-     * Description: Authenticate to the Odoo server is required to perform any operation
-     * this method is purposed to obtain the uid of the user
-     */
-    private void authenticate() {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(commonConfig);
-
-            Object[] authParams = new Object[]{db, username, password, new HashMap<>()};
-            uid = (int) client.execute("authenticate", authParams);
-            System.out.println("UID: " + uid);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Search and read records
-     *
-     * @param model         Model name
-     * @param searchParams  Search parameters
-     * @return records      List of records
-     */
-    public List<Object> searchAndRead(String model, List<Object> searchParams) {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(modelsConfig);
-
-            return asList((Object[]) client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "search_read",
-                    searchParams
-            )));
-        } catch (XmlRpcException xe) {
-            System.out.println("Error: " + xe.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    /**
-     * Search Count
-     *
-     * @param model         Model name
-     * @param searchParams  Search parameters
-     * @return count        Number of records
-     */
-    public Integer searchCount(String model, List<Object> searchParams) {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(modelsConfig);
-
-            return (Integer) client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "search_count",
-                    searchParams
-            ));
-        } catch (XmlRpcException xe) {
-            System.out.println("Error: " + xe.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    /**
-     * Create a record
-     *
-     * @param model         Model name
-     * @param data          Data to be created
-     * @param file          File to be uploaded
-     * @return id           the id of the created record
-     */
-    public Integer create(String model, Map<String, Object> data, MultipartFile file) {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(modelsConfig);
-
-            // Create a param for the data
-            List<Object> params = asList(
-                    data
-            );
-
-            // Check if the file is not null
-            if (file != null) {
-                byte[] fileBytes = file.getBytes();
-                String encodedFile = Base64.getEncoder().encodeToString(fileBytes);
-                data.put("image_1920", encodedFile);
-            }
-
-            // Create a record
-            return (Integer) client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "create",
-                    params
-            ));
-        } catch (XmlRpcException xe) {
-            System.out.println("Error: " + xe.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    /**
-     * Update a record
-     *
-     * @param model         Model name
-     * @param id            Id of the record to be updated
-     * @param data          Data to be updated
-     * @param file          File to be uploaded
-     * @return Object[]     the updated record (Keeping it original type)
-     */
-    public Object[] update(String model, Integer id, Map<String, Object> data, MultipartFile file) {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(modelsConfig);
-
-            // create a param
-            List<Object> params = asList(
-                    asList(id),
-                    data
-            );
-
-            // check if file is not null
-            if (file != null) {
-                byte[] fileBytes = file.getBytes();
-                String encodedFile = Base64.getEncoder().encodeToString(fileBytes);
-                data.put("image_1920", encodedFile);
-            }
-
-            // update a record
-            client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "write",
-                    params
-            ));
-
-            // get record name after having changed it
-            return (Object[]) client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "name_get",
-                    asList(asList(id))
-            ));
-        } catch (XmlRpcException xe) {
-            System.out.println("Error: " + xe.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    /**
-     * Delete a record
-     *
-     * @param model     Model name
-     * @param id        Id of the record to be deleted
-     * @return message  Message of the operation
-     */
-    public String delete(String model, Integer id) {
-        try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(modelsConfig);
-
-            // delete a record
-            client.execute("execute_kw", asList(
-                    db, uid, password,
-                    model, "unlink",
-                    asList(asList(id))
-            ));
-            return "Record with id: " + id + " has been deleted";
-        } catch (XmlRpcException xe) {
-            return xe.getMessage();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-}
\ No newline at end of file
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooException;
+import com.gii.midapp.exception.OdooFaultException;
+import com.gii.midapp.exception.OdooUnavailableException;
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.apache.xmlrpc.client.XmlRpcClientException;
+import org.apache.xmlrpc.client.XmlRpcHttpTransportException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+
+@Component
+public class OdooClientApi {
+    // Methods that don't change data, they get the read deadline and may be retried
+    private static final Set<String> READ_METHODS = new HashSet<>(asList("search_read", "search_count", "name_get"));
+
+    private final String url;
+    private final String username;
+    private final String db;
+    private final String password;
+    private XmlRpcClientConfigImpl commonConfig; // Global variable for common server configuration
+    private XmlRpcClientConfigImpl modelsConfig; // Global variable for models server configuration
+    private final OdooRpcClient commonClient; // Shared client for the common server, reused across calls
+    private final OdooRpcClient modelsClient; // Shared client for the models server, reused across calls
+    private final OdooSession session; // Lazily authenticated session holding the uid
+    private final ApplicationEventPublisher eventPublisher; // Notifies caches after a write
+    private final OdooBulkhead bulkhead; // Caps the number of concurrent calls to this Odoo instance, adapting to its latency
+    private final OdooCircuitBreaker circuitBreaker; // Fails calls fast while Odoo can't be reached
+    private final OdooResilienceConfig resilience;
+    private final OdooTaskExecutor taskExecutor; // Runs hedged search_read attempts
+    private final XmlRpcClientConfigImpl readConfig; // Models server configuration with the read deadline
+    private final XmlRpcClientConfigImpl writeConfig; // Models server configuration with the write deadline
+    private final OdooMetrics metrics;
+    private final Map<List<Object>, CompletableFuture<Object>> inFlightReads = new ConcurrentHashMap<>(); // Reads currently sent to Odoo
+    private final boolean streamingParser;
+    private final Map<OdooRowMapper<?>, OdooRequestConfig> typedReadConfigs = new ConcurrentHashMap<>(); // Read configuration per row mapper
+
+    /**
+     * Constructor
+     *
+     * @param url                 URL of the Odoo server
+     * @param db                  Database name
+     * @param username            Username
+     * @param password            Password
+     * @param transport           Pooled HTTP transport shared by every call, XML-RPC or JSON-RPC
+     * @param eventPublisher      Publisher of OdooModelChangedEvent after writes
+     * @param maxConcurrentCalls  Max calls sent to Odoo at the same time
+     * @param maxWaitMillis       Max time in milliseconds a call waits for a free slot
+     * @param minConcurrentCalls  Lowest limit the adaptive limit goes down to
+     * @param adaptiveLimit       Learn the concurrency limit from the latency of the calls
+     * @param bulkShare           Share of the limit bulk calls (sync, index loads, queued writes) may use
+     * @param rttTolerance        Latency over the no-load latency tolerated before the limit shrinks
+     * @param resilience          Deadlines, circuit breaker, retry and hedging settings
+     * @param taskExecutor        Executor of hedged calls
+     * @param metrics             Micrometer meters of the calls
+     * @param streamingParser     Parse typed search_read responses straight into their objects
+     */
+    @Autowired
+    public OdooClientApi(@Value("${odoo.datasource.url}") String url,
+                         @Value("${odoo.datasource.db}") String db,
+                         @Value("${odoo.datasource.username}") String username,
+                         @Value("${odoo.datasource.password}") String password,
+                         OdooHttpTransport transport,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${odoo.bulkhead.max-concurrent-calls:32}") int maxConcurrentCalls,
+                         @Value("${odoo.bulkhead.max-wait:5000}") long maxWaitMillis,
+                         @Value("${odoo.bulkhead.min-concurrent-calls:2}") int minConcurrentCalls,
+                         @Value("${odoo.bulkhead.adaptive:true}") boolean adaptiveLimit,
+                         @Value("${odoo.bulkhead.bulk-share:0.5}") double bulkShare,
+                         @Value("${odoo.bulkhead.rtt-tolerance:2.0}") double rttTolerance,
+                         OdooResilienceConfig resilience,
+                         OdooTaskExecutor taskExecutor,
+                         OdooMetrics metrics,
+                         @Value("${odoo.xmlrpc.streaming-parser:true}") boolean streamingParser) {
+        this.db = db;
+        this.username = username;
+        this.password = password;
+        this.url = url;
+        this.commonConfig = createCommonConfig(); // Create the common server configuration
+        this.modelsConfig = createModelsConfig(); // Create the models server configuration
+        this.commonClient = transport.createClient(url, "common", commonConfig);
+        this.modelsClient = transport.createClient(url, "object", modelsConfig);
+        this.session = new OdooSession(commonClient, db, username, password); // Logs in on first call, not at startup
+        this.eventPublisher = eventPublisher;
+        this.bulkhead = new OdooBulkhead(minConcurrentCalls, maxConcurrentCalls, maxWaitMillis, adaptiveLimit, bulkShare, rttTolerance);
+        this.circuitBreaker = new OdooCircuitBreaker(resilience.getFailureThreshold(), resilience.getOpenDuration());
+        this.resilience = resilience;
+        this.taskExecutor = taskExecutor;
+        this.readConfig = modelsConfig.cloneMe();
+        this.readConfig.setReplyTimeout(resilience.getReadTimeout());
+        this.writeConfig = modelsConfig.cloneMe();
+        this.writeConfig.setReplyTimeout(resilience.getWriteTimeout());
+        this.metrics = metrics;
+        this.streamingParser = streamingParser;
+        metrics.gauge("odoo.rpc.in_flight", "Calls currently sent to Odoo", bulkhead, OdooBulkhead::getInFlightCalls);
+        metrics.gauge("odoo.rpc.waiting", "Calls waiting for a free bulkhead slot", bulkhead, OdooBulkhead::getWaitingCalls);
+        metrics.gauge("odoo.rpc.concurrency_limit", "Current max calls sent to Odoo at the same time", bulkhead, OdooBulkhead::getLimit);
+        metrics.gauge("odoo.circuit_breaker.open", "1 while the Odoo circuit breaker rejects calls", circuitBreaker,
+                breaker -> breaker.getState() == OdooCircuitBreaker.State.CLOSED ? 0 : 1);
+    }
+
+    /**
+     * Create the common server configuration
+     *
+     * @return config  The common server configuration
+     */
+    private XmlRpcClientConfigImpl createCommonConfig() {
+        try {
+            XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
+            config.setServerURL(new URL(url + "/xmlrpc/2/common"));
+            return config;
+        } catch (Exception e) {
+            throw new RuntimeException("Error while creating common config", e);
+        }
+    }
+
+    /**
+     * Create the models server configuration
+     *
+     * @return config  The models server configuration
+     */
+    private XmlRpcClientConfigImpl createModelsConfig() {
+        try {
+            XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
+            config.setServerURL(new URL(url + "/xmlrpc/2/object"));
+            return config;
+        } catch (Exception e) {
+            throw new RuntimeException("Error while creating models config", e);
+        }
+    }
+
+    /**
+     * Execute a method on a model
+     * Description: Every call goes through here so the session can log in lazily,
+     * and a call rejected with an access denied fault is retried once after logging in again.
+     * The bulkhead keeps the number of calls in flight to Odoo bounded and learns the bound from
+     * their latency, interactive calls first. The circuit breaker fails calls fast while Odoo
+     * can't be reached, and the reply deadline depends on the method
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method
+     * @return result   Raw result of execute_kw
+     */
+    private Object execute(String model, String method, List<Object> params) throws XmlRpcException {
+        return execute(model, method, params, null);
+    }
+
+    /**
+     * Execute a method on a model
+     * Description: With a row mapper, the response is parsed straight into the mapper's objects
+     * and the result is a List of them instead of an Object[] of HashMap
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method
+     * @param rowMapper Mapper of the records of a search_read, null for the generic result
+     * @return result   Raw result of execute_kw
+     */
+    private Object execute(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper) throws XmlRpcException {
+        String operation = model + "." + method;
+        XmlRpcClientConfigImpl config = READ_METHODS.contains(method) ? readConfig : writeConfig;
+        if (rowMapper != null) {
+            config = typedReadConfigs.computeIfAbsent(rowMapper, mapper -> new OdooRequestConfig(readConfig, mapper));
+        }
+        bulkhead.acquire(operation, OdooCallPriority.current());
+        boolean sent = false;
+        boolean reachable = false;
+        boolean faulted = false;
+        int rows = 0;
+        long start = System.nanoTime();
+        try {
+            circuitBreaker.acquirePermission(operation);
+            sent = true;
+            String outcome = "error";
+            start = System.nanoTime();
+            try {
+                OdooSession.Login login = session.getLogin();
+                try {
+                    Object result = modelsClient.execute(config, "execute_kw", asList(
+                            db, login.getUid(), password,
+                            model, method,
+                            params
+                    ));
+                    reachable = true;
+                    outcome = "success";
+                    rows = OdooBulkhead.rowsOf(result);
+                    return result;
+                } catch (XmlRpcException xe) {
+                    if (!OdooSession.isAccessDenied(xe)) {
+                        throw xe;
+                    }
+                    Object result = modelsClient.execute(config, "execute_kw", asList(
+                            db, session.reauthenticate(login).getUid(), password,
+                            model, method,
+                            params
+                    ));
+                    reachable = true;
+                    outcome = "success";
+                    rows = OdooBulkhead.rowsOf(result);
+                    return result;
+                }
+            } catch (XmlRpcException xe) {
+                reachable = !isTransportFailure(xe);
+                faulted = reachable;
+                metrics.recordError(model, method, reachable ? String.valueOf(xe.code) : "transport");
+                throw xe;
+            } finally {
+                metrics.recordCall(model, method, outcome, System.nanoTime() - start);
+                if (reachable) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+        } finally {
+            if (!sent || faulted || Thread.currentThread().isInterrupted()) {
+                // Not sent, cancelled, or a fault: the latency says nothing about Odoo's load
+                bulkhead.release();
+            } else {
+                bulkhead.release(operation, rows, System.nanoTime() - start, !reachable);
+            }
+        }
+    }
+
+    /**
+     * Execute a read-only method, retrying when Odoo can't be reached
+     * Description: Only I/O errors and timeouts are retried, with exponential backoff and
+     * full jitter so retries from many threads don't hit Odoo at the same moment.
+     * Faults are returned at once since Odoo would answer the same again
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method
+     * @param rowMapper Mapper of the records of a search_read, null for the generic result
+     * @return result   Raw result of execute_kw
+     */
+    private Object executeWithRetry(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper) throws XmlRpcException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return execute(model, method, params, rowMapper);
+            } catch (XmlRpcException xe) {
+                if (attempt >= resilience.getMaxAttempts() || !isTransportFailure(xe)) {
+                    throw xe;
+                }
+                long maxBackoff = resilience.getBackoff() << (attempt - 1);
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(maxBackoff + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new OdooUnavailableException("Interrupted while retrying " + model + "." + method, ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute a search_read, sending it a second time if the first one is slow
+     * Description: When the first call hasn't answered after the hedge delay, the same call
+     * is sent again and whichever answers first wins, the other one is cancelled.
+     * This cuts the tail latency caused by a single slow Odoo worker
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method
+     * @param rowMapper Mapper of the records, null for the generic result
+     * @return result   Raw result of execute_kw
+     */
+    private Object executeHedged(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper) throws XmlRpcException {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        Callable<Object> attempt = () -> {
+            try {
+                result.complete(executeWithRetry(model, method, params, rowMapper));
+            } catch (Throwable t) {
+                // The call fails only when both attempts failed
+                if (failures.incrementAndGet() == 2 || !result.isDone() && t instanceof XmlRpcException && !isTransportFailure((XmlRpcException) t)) {
+                    result.completeExceptionally(t);
+                }
+            }
+            return null;
+        };
+
+        Future<Object> primary = taskExecutor.submit(attempt);
+        Future<Object> hedge = null;
+        try {
+            try {
+                return result.get(resilience.getHedgeDelay(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                hedge = taskExecutor.submit(attempt);
+            }
+            // Both attempts are bounded by the read deadline and the retries
+            return result.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof XmlRpcException) {
+                throw (XmlRpcException) ee.getCause();
+            }
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new OdooException("Error while executing " + model + "." + method, ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new OdooUnavailableException("Interrupted while waiting for " + model + "." + method, ie);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Execute a read-only method, sharing the call with identical concurrent reads
+     * Description: While a read is in flight, callers asking for the same model, method
+     * and parameters (domain, fields, offset, limit, order) wait for it and get the same result
+     * instead of sending their own call. Nothing is kept once the call returns
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method
+     * @param rowMapper Mapper of the records of a search_read, null for the generic result
+     * @return result   Raw result of execute_kw, shared between the coalesced callers
+     */
+    private Object executeRead(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper) throws XmlRpcException {
+        List<Object> key = asList(model, method, params, rowMapper);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightReads.putIfAbsent(key, call);
+        if (inFlight != null) {
+            try {
+                return inFlight.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new OdooUnavailableException("Interrupted while waiting for " + model + "." + method, ie);
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof XmlRpcException) {
+                    throw (XmlRpcException) ee.getCause();
+                }
+                if (ee.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ee.getCause();
+                }
+                throw new OdooException("Error while executing " + model + "." + method, ee.getCause());
+            }
+        }
+
+        try {
+            Object result = "search_read".equals(method) && resilience.getHedgeDelay() > 0
+                    ? executeHedged(model, method, params, rowMapper)
+                    : executeWithRetry(model, method, params, rowMapper);
+            call.complete(result);
+            return result;
+        } catch (XmlRpcException | RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightReads.remove(key, call);
+        }
+    }
+
+    /**
+     * Check whether a call failed before Odoo could answer it
+     *
+     * @param xe        The exception raised by the call
+     * @return boolean  true for I/O errors, timeouts and HTTP errors, false for faults returned by Odoo
+     */
+    private static boolean isTransportFailure(XmlRpcException xe) {
+        if (xe instanceof OdooInvalidResponseException) {
+            return false; // Odoo answered, even if the answer can't be read
+        }
+        return xe instanceof XmlRpcClientException
+                || xe instanceof XmlRpcHttpTransportException
+                || xe.getCause() instanceof IOException;
+    }
+
+    /**
+     * Turn an XML-RPC exception into the typed exception thrown to the callers
+     *
+     * @param operation     Model and method of the call
+     * @param xe            The exception raised by the call
+     * @return OdooException  OdooUnavailableException if Odoo could not be reached, OdooFaultException otherwise
+     */
+    private static OdooException translate(String operation, XmlRpcException xe) {
+        if (isTransportFailure(xe)) {
+            return new OdooUnavailableException("Odoo could not be reached for " + operation + ": " + xe.getMessage(), xe);
+        }
+        return new OdooFaultException(xe.code, "Odoo rejected " + operation + ": " + xe.getMessage(), xe);
+    }
+
+    /**
+     * Search and read records
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @return records      List of records
+     */
+    public List<Object> searchAndRead(String model, List<Object> searchParams) {
+        try {
+            return asList((Object[]) executeRead(model, "search_read", searchParams, null));
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".search_read", xe);
+        }
+    }
+
+    /**
+     * Search and read records into typed objects
+     * Description: The response is parsed field by field into the mapper's objects, without
+     * building the generic Object[] of HashMap first. With the streaming parser turned off
+     * the generic result is read and handed to the same mapper
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @param rowMapper     Mapper of the records
+     * @return records      One object per record
+     */
+    public <T> List<T> searchAndRead(String model, List<Object> searchParams, OdooRowMapper<T> rowMapper) {
+        try {
+            if (streamingParser) {
+                return (List<T>) executeRead(model, "search_read", searchParams, rowMapper);
+            }
+            Object[] records = (Object[]) executeRead(model, "search_read", searchParams, null);
+            List<T> result = new ArrayList<>(records.length);
+            for (Object record : records) {
+                T row = rowMapper.newRow();
+                for (Map.Entry<String, Object> field : ((Map<String, Object>) record).entrySet()) {
+                    rowMapper.setField(row, field.getKey(), field.getValue());
+                }
+                result.add(row);
+            }
+            return result;
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".search_read", xe);
+        }
+    }
+
+    /**
+     * Search and read records with a precompiled request
+     *
+     * @param call      search_read template bound to its values
+     * @return records  List of records
+     */
+    public List<Object> searchAndRead(OdooQueryTemplate.Call call) {
+        return searchAndRead(call.getTemplate().getModel(), call);
+    }
+
+    /**
+     * Search and read records into typed objects with a precompiled request
+     *
+     * @param call      search_read template bound to its values
+     * @param rowMapper Mapper of the records
+     * @return records  One object per record
+     */
+    public <T> List<T> searchAndRead(OdooQueryTemplate.Call call, OdooRowMapper<T> rowMapper) {
+        return searchAndRead(call.getTemplate().getModel(), call, rowMapper);
+    }
+
+    /**
+     * Search Count
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @return count        Number of records
+     */
+    public Integer searchCount(String model, List<Object> searchParams) {
+        try {
+            return (Integer) executeRead(model, "search_count", searchParams, null);
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".search_count", xe);
+        }
+    }
+
+    /**
+     * Search Count with a precompiled request
+     *
+     * @param call      search_count template bound to its values
+     * @return count    Number of records
+     */
+    public Integer searchCount(OdooQueryTemplate.Call call) {
+        return searchCount(call.getTemplate().getModel(), call);
+    }
+
+    /**
+     * Create a record
+     *
+     * @param model         Model name
+     * @param data          Data to be created
+     * @param file          File to be uploaded
+     * @return id           the id of the created record
+     */
+    public Integer create(String model, Map<String, Object> data, InputStreamSource file) {
+        try {
+            // Create a param for the data
+            List<Object> params = asList(
+                    data
+            );
+
+            // Check if the file is not null, it is base64 encoded while the request is written
+            if (file != null) {
+                data.put("image_1920", new OdooBinaryValue(file));
+            }
+
+            // Create a record
+            Integer id = (Integer) execute(model, "create", params);
+            eventPublisher.publishEvent(new OdooModelChangedEvent(model, Collections.singletonList(id), false));
+            return id;
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".create", xe);
+        }
+    }
+
+    /**
+     * Update a record
+     *
+     * @param model         Model name
+     * @param id            Id of the record to be updated
+     * @param data          Data to be updated
+     * @param file          File to be uploaded
+     * @return Object[]     the updated record (Keeping it original type)
+     */
+    public Object[] update(String model, Integer id, Map<String, Object> data, InputStreamSource file) {
+        try {
+            // create a param
+            List<Object> params = asList(
+                    asList(id),
+                    data
+            );
+
+            // check if file is not null, it is base64 encoded while the request is written
+            if (file != null) {
+                data.put("image_1920", new OdooBinaryValue(file));
+            }
+
+            // update a record
+            execute(model, "write", params);
+            eventPublisher.publishEvent(new OdooModelChangedEvent(model, Collections.singletonList(id), false));
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".write", xe);
+        }
+
+        try {
+            // get record name after having changed it
+            return (Object[]) executeWithRetry(model, "name_get", asList(asList(id)), null);
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".name_get", xe);
+        }
+    }
+
+    /**
+     * Delete a record
+     *
+     * @param model     Model name
+     * @param id        Id of the record to be deleted
+     * @return message  Message of the operation
+     */
+    public String delete(String model, Integer id) {
+        try {
+            // delete a record
+            execute(model, "unlink", asList(asList(id)));
+            eventPublisher.publishEvent(new OdooModelChangedEvent(model, Collections.singletonList(id), true));
+            return "Record with id: " + id + " has been deleted";
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".unlink", xe);
+        }
+    }
+
+    /**
+     * Create several records in one call
+     * Description: Odoo creates the whole list in a single transaction,
+     * so if one record fails none of them is created
+     *
+     * @param model         Model name
+     * @param dataList      Data of each record to be created
+     * @return ids          the ids of the created records, in the same order as dataList
+     */
+    public List<Integer> createBatch(String model, List<Map<String, Object>> dataList) {
+        Object[] ids;
+        try {
+            ids = (Object[]) execute(model, "create", asList(dataList));
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".create", xe);
+        }
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            result.add((Integer) id);
+        }
+        eventPublisher.publishEvent(new OdooModelChangedEvent(model, result, false));
+        return result;
+    }
+
+    /**
+     * Update several records with the same data in one call
+     *
+     * @param model     Model name
+     * @param ids       Ids of the records to be updated
+     * @param data      Data to be written to every record
+     */
+    public void updateBatch(String model, List<Integer> ids, Map<String, Object> data) {
+        try {
+            execute(model, "write", asList(ids, data));
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".write", xe);
+        }
+        eventPublisher.publishEvent(new OdooModelChangedEvent(model, ids, false));
+    }
+
+    /**
+     * Delete several records in one call
+     *
+     * @param model     Model name
+     * @param ids       Ids of the records to be deleted
+     */
+    public void deleteBatch(String model, List<Integer> ids) {
+        try {
+            execute(model, "unlink", asList(ids));
+        } catch (XmlRpcException xe) {
+            throw translate(model + ".unlink", xe);
+        }
+        eventPublisher.publishEvent(new OdooModelChangedEvent(model, ids, true));
+    }
+
+    /**
+     * @return int  Number of calls waiting for a free bulkhead slot
+     */
+    public int getWaitingCalls() {
+        return bulkhead.getWaitingCalls();
+    }
+
+    /**
+     * @return int  Number of calls currently sent to Odoo
+     */
+    public int getInFlightCalls() {
+        return bulkhead.getInFlightCalls();
+    }
+
+    /**
+     * @return int  Current max number of calls sent to Odoo at the same time
+     */
+    public int getConcurrencyLimit() {
+        return bulkhead.getLimit();
+    }
+
+    /**
+     * @return State    Current state of the circuit breaker
+     */
+    public OdooCircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * @return OdooBulkhead Limiter of the calls to this Odoo instance, shared with OdooReactiveClientApi
+     */
+    OdooBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * @return OdooCircuitBreaker   Circuit breaker of this Odoo instance, shared with OdooReactiveClientApi
+     */
+    OdooCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
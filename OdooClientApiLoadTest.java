@@ -0,0 +1,84 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.xmlrpc.stub.OdooStubServer;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Load test of the pooled transport against the stub server
+ * Description: Compares the pooled keep-alive transport of OdooClientApi with what it replaced,
+ * a new XmlRpcClient on the default URL connection transport for every call. The gain is printed,
+ * not asserted: it depends on the machine and the JDK's own keep-alive narrows it.
+ * Run with: mvn test -Dgroups=load
+ */
+@Tag("load")
+class OdooClientApiLoadTest {
+    private static final List<Object> SEARCH = asList(
+            asList(asList("name", "ilike", "Partner 1")),
+            asList("id", "name", "phone", "email"),
+            0,
+            20
+    );
+
+    private OdooStubServer stub;
+    private OdooMetrics metrics;
+    private OdooHttpTransport transport;
+    private OdooTaskExecutor taskExecutor;
+
+    @BeforeEach
+    void start() throws Exception {
+        stub = new OdooStubServer(0);
+        stub.seed(1000, 100, 20);
+        stub.setLatency(5, 5);
+        stub.start();
+        metrics = OdooTestSupport.metrics();
+        transport = OdooTestSupport.transport("xmlrpc", OdooLoadRunner.THREADS, metrics);
+        taskExecutor = OdooTestSupport.taskExecutor(metrics);
+    }
+
+    @AfterEach
+    void stop() {
+        taskExecutor.destroy();
+        transport.destroy();
+        stub.stop();
+    }
+
+    @Test
+    void comparePooledTransportWithPerCallClients() throws Exception {
+        URL objectUrl = new URL(OdooTestSupport.url(stub) + "/xmlrpc/2/object");
+        URL commonUrl = new URL(OdooTestSupport.url(stub) + "/xmlrpc/2/common");
+
+        Object uid = newClient(commonUrl).execute("authenticate", asList(OdooTestSupport.DB, OdooTestSupport.USERNAME,
+                OdooTestSupport.PASSWORD, new HashMap<>()));
+        OdooLoadRunner.Result perCall = OdooLoadRunner.run("per-call XmlRpcClient",
+                // What every call did before: a new client on the default transport, logged in once at startup
+                () -> newClient(objectUrl).execute("execute_kw", asList(OdooTestSupport.DB, uid, OdooTestSupport.PASSWORD,
+                        "res.partner", "search_read", SEARCH)));
+
+        OdooClientApi client = OdooTestSupport.client(stub, transport, taskExecutor, metrics, OdooLoadRunner.THREADS);
+        OdooLoadRunner.Result pooled = OdooLoadRunner.run("pooled OdooClientApi",
+                () -> client.searchAndRead("res.partner", SEARCH));
+
+        OdooLoadRunner.report(perCall);
+        OdooLoadRunner.report(pooled);
+        System.out.printf("Throughput gain: x%.2f%n", pooled.getThroughput() / perCall.getThroughput());
+    }
+
+    private static XmlRpcClient newClient(URL url) {
+        XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
+        config.setServerURL(url);
+        XmlRpcClient client = new XmlRpcClient();
+        client.setConfig(config);
+        return client;
+    }
+}
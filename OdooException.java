@@ -0,0 +1,14 @@
+package com.gii.midapp.exception;
+
+/**
+ * Base class of the errors raised by OdooClientApi
+ */
+public class OdooException extends RuntimeException {
+    public OdooException(String message) {
+        super(message);
+    }
+
+    public OdooException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.gii.midapp.exception;
+
+/**
+ * Odoo answered the call with a fault (access denied, validation error, missing record, ...)
+ * Description: Odoo itself is healthy, retrying the same call will fail the same way
+ */
+public class OdooFaultException extends OdooException {
+    private final int faultCode;
+
+    public OdooFaultException(int faultCode, String message, Throwable cause) {
+        super(message, cause);
+        this.faultCode = faultCode;
+    }
+
+    public int getFaultCode() {
+        return faultCode;
+    }
+}
@@ -0,0 +1,118 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OdooHttpTransport implements DisposableBean {
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final boolean chunkedRequests;
+    private final String protocol;
+    private final OdooMetrics metrics;
+    private final MultiThreadedHttpConnectionManager connectionManager; // Shared pool of keep-alive connections
+    private final HttpClient httpClient;
+    private final IdleConnectionTimeoutThread idleConnectionEvictor;
+
+    /**
+     * Constructor
+     *
+     * @param maxConnectionsPerRoute    Max pooled connections to a single Odoo host
+     * @param maxConnectionsTotal       Max pooled connections overall
+     * @param connectTimeout            TCP connect timeout in milliseconds
+     * @param readTimeout               Socket read timeout in milliseconds
+     * @param idleTimeout               Idle time in milliseconds before a pooled connection is closed
+     * @param chunkedRequests           Stream request bodies with chunked encoding instead of buffering them
+     *                                  to compute Content-Length (the Odoo front proxy must accept chunked requests)
+     * @param metrics                   Records the request and response body sizes
+     * @param protocol                  xmlrpc (/xmlrpc/2/*) or jsonrpc (/jsonrpc)
+     */
+    @Autowired
+    public OdooHttpTransport(@Value("${odoo.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+                             @Value("${odoo.http.max-connections-total:50}") int maxConnectionsTotal,
+                             @Value("${odoo.http.connect-timeout:5000}") int connectTimeout,
+                             @Value("${odoo.http.read-timeout:30000}") int readTimeout,
+                             @Value("${odoo.http.idle-timeout:60000}") long idleTimeout,
+                             @Value("${odoo.http.chunked-requests:false}") boolean chunkedRequests,
+                             OdooMetrics metrics,
+                             @Value("${odoo.transport.protocol:xmlrpc}") String protocol) {
+        if (!"xmlrpc".equals(protocol) && !"jsonrpc".equals(protocol)) {
+            throw new IllegalArgumentException("odoo.transport.protocol must be xmlrpc or jsonrpc, got " + protocol);
+        }
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.chunkedRequests = chunkedRequests;
+        this.metrics = metrics;
+        this.protocol = protocol;
+
+        this.connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerRoute);
+        params.setMaxTotalConnections(maxConnectionsTotal);
+        params.setConnectionTimeout(connectTimeout);
+        params.setSoTimeout(readTimeout);
+        params.setStaleCheckingEnabled(true);
+
+        this.httpClient = new HttpClient(connectionManager);
+        // Don't wait forever for a free connection when the pool is exhausted
+        this.httpClient.getParams().setConnectionManagerTimeout(connectTimeout);
+
+        this.idleConnectionEvictor = new IdleConnectionTimeoutThread();
+        idleConnectionEvictor.setName("odoo-idle-connection-evictor");
+        idleConnectionEvictor.setDaemon(true);
+        idleConnectionEvictor.addConnectionManager(connectionManager);
+        idleConnectionEvictor.setConnectionTimeout(idleTimeout);
+        idleConnectionEvictor.setTimeoutInterval(Math.max(1000L, idleTimeout / 2));
+        idleConnectionEvictor.start();
+    }
+
+    /**
+     * Create a client of an Odoo service bound to the shared connection pool
+     * Description: The clients are thread-safe once configured, so the returned client
+     * is meant to be created once per service and reused for every call.
+     * The wire protocol is picked by odoo.transport.protocol
+     *
+     * @param url       URL of the Odoo server
+     * @param service   Odoo service, common or object
+     * @param config    Server configuration of the service, its timeouts are set here
+     * @return client   Client that sends its requests through the pooled transport
+     */
+    public OdooRpcClient createClient(String url, String service, XmlRpcClientConfigImpl config) {
+        config.setConnectionTimeout(connectTimeout);
+        config.setReplyTimeout(readTimeout);
+        config.setContentLengthOptional(chunkedRequests);
+
+        if ("jsonrpc".equals(protocol)) {
+            return new OdooJsonRpcClient(httpClient, url, service, config, chunkedRequests, metrics);
+        }
+        return new OdooXmlRpcClient(createXmlRpcClient(config));
+    }
+
+    private XmlRpcClient createXmlRpcClient(XmlRpcClientConfigImpl config) {
+        XmlRpcClient client = new XmlRpcClient();
+        client.setConfig(config);
+        client.setTypeFactory(new OdooTypeFactory(client)); // Streams OdooBinaryValue as base64
+
+        OdooMeteredTransportFactory transportFactory = new OdooMeteredTransportFactory(client, metrics);
+        transportFactory.setHttpClient(httpClient);
+        client.setTransportFactory(transportFactory);
+        return client;
+    }
+
+    /**
+     * Close the pooled connections when the application context shuts down
+     */
+    @Override
+    public void destroy() {
+        idleConnectionEvictor.shutdown();
+        connectionManager.shutdown();
+    }
+}
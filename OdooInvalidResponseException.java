@@ -0,0 +1,17 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.XmlRpcException;
+
+/**
+ * Odoo answered, but the response could not be parsed or mapped
+ * Description: Not a transport failure, Odoo was reached: the call is not retried and doesn't
+ * count against the circuit breaker. Thrown to the callers as an OdooFaultException
+ */
+public class OdooInvalidResponseException extends XmlRpcException {
+    // Fault code for "parse error, not well formed" of the XML-RPC fault code interoperability spec
+    public static final int FAULT_CODE_INVALID_RESPONSE = -32700;
+
+    public OdooInvalidResponseException(String message, Throwable cause) {
+        super(FAULT_CODE_INVALID_RESPONSE, message, cause);
+    }
+}
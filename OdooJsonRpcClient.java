@@ -0,0 +1,150 @@
+package com.gii.midapp.xmlrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.apache.xmlrpc.client.XmlRpcClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OdooRpcClient over Odoo's /jsonrpc endpoint
+ * Description: Requests go through the same pooled HttpClient as the XML-RPC transport and
+ * are encoded and decoded by OdooJsonRpcCodec
+ */
+public class OdooJsonRpcClient implements OdooRpcClient {
+    private final HttpClient httpClient;
+    private final String endpoint;
+    private final String service;
+    private final XmlRpcClientConfigImpl defaultConfig;
+    private final boolean chunkedRequests;
+    private final OdooMetrics metrics;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param httpClient        Pooled HTTP client
+     * @param url               URL of the Odoo server
+     * @param service           Odoo service, common or object
+     * @param defaultConfig     Configuration used when the call doesn't bring its own
+     * @param chunkedRequests   Stream request bodies with chunked encoding instead of buffering them
+     * @param metrics           Records the request and response body sizes
+     */
+    public OdooJsonRpcClient(HttpClient httpClient, String url, String service, XmlRpcClientConfigImpl defaultConfig,
+                             boolean chunkedRequests, OdooMetrics metrics) {
+        this.httpClient = httpClient;
+        this.endpoint = url + "/jsonrpc";
+        this.service = service;
+        this.defaultConfig = defaultConfig;
+        this.chunkedRequests = chunkedRequests;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object execute(String method, List<Object> params) throws XmlRpcException {
+        return execute(defaultConfig, method, params);
+    }
+
+    @Override
+    public Object execute(XmlRpcClientConfigImpl config, String method, List<Object> params) throws XmlRpcException {
+        // execute_kw(db, uid, password, model, method, params)
+        boolean executeKw = "execute_kw".equals(method) && params.size() > 4;
+        String metricModel = executeKw ? String.valueOf(params.get(3)) : "none";
+        String metricMethod = executeKw ? String.valueOf(params.get(4)) : method;
+        OdooRowMapper<?> rowMapper = config instanceof OdooRequestConfig ? ((OdooRequestConfig) config).getRowMapper() : null;
+
+        PostMethod post = new PostMethod(endpoint);
+        try {
+            post.getParams().setSoTimeout(config.getReplyTimeout());
+            post.setRequestEntity(requestEntity(method, params, metricModel, metricMethod));
+
+            int status = httpClient.executeMethod(post);
+            if (status != HttpStatus.SC_OK) {
+                throw new XmlRpcClientException("Odoo answered HTTP " + status + " " + post.getStatusText(),
+                        new IOException("HTTP " + status));
+            }
+            try (InputStream in = post.getResponseBodyAsStream();
+                 JsonParser parser = OdooJsonRpcCodec.createParser(in)) {
+                Object result = OdooJsonRpcCodec.readResponse(parser, rowMapper);
+                metrics.recordPayload("jsonrpc", metricModel, metricMethod, "in", parser.getCurrentLocation().getByteOffset());
+                return result;
+            } catch (JsonProcessingException | RuntimeException e) {
+                // Odoo answered, the body is malformed or doesn't fit the mapper: not a transport failure
+                throw new OdooInvalidResponseException("Failed to parse the response of " + service + "." + method + ": " + e.getMessage(), e);
+            }
+        } catch (IOException e) {
+            throw new XmlRpcClientException("Failed to call " + service + "." + method + " on " + endpoint + ": " + e.getMessage(), e);
+        } finally {
+            post.releaseConnection();
+        }
+    }
+
+    /**
+     * Build the request body {"jsonrpc": "2.0", "method": "call", "params": {"service", "method", "args"}, "id"}
+     */
+    private RequestEntity requestEntity(String method, List<Object> params, String metricModel, String metricMethod) throws IOException {
+        long id = requestIds.incrementAndGet();
+        if (!chunkedRequests) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            OdooJsonRpcCodec.writeRequest(body, id, service, method, params);
+            metrics.recordPayload("jsonrpc", metricModel, metricMethod, "out", body.size());
+            return new ByteArrayRequestEntity(body.toByteArray(), "application/json");
+        }
+        return new RequestEntity() {
+            @Override
+            public boolean isRepeatable() {
+                return true; // Binary values are re-read from their InputStreamSource
+            }
+
+            @Override
+            public void writeRequest(OutputStream out) throws IOException {
+                CountingOutputStream counting = new CountingOutputStream(out);
+                OdooJsonRpcCodec.writeRequest(counting, id, service, method, params);
+                metrics.recordPayload("jsonrpc", metricModel, metricMethod, "out", counting.count);
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public String getContentType() {
+                return "application/json";
+            }
+        };
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.gii.midapp.xmlrpc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.xmlrpc.XmlRpcException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Encoding and decoding of Odoo JSON-RPC bodies with Jackson's streaming API
+ * Description: Results have the same Java types the XML-RPC client returns (Integer, String,
+ * Boolean, Object[], HashMap), a typed search_read is read straight into its OdooRowMapper,
+ * and errors become the XmlRpcException the XML-RPC endpoint would have returned
+ */
+final class OdooJsonRpcCodec {
+    // The request stream belongs to the HTTP client, the generator must not close it
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    // Fault codes Odoo's XML-RPC endpoints use, kept so OdooSession and OdooClientApi handle both protocols alike
+    private static final int FAULT_CODE_APPLICATION_ERROR = 1;
+    private static final int FAULT_CODE_WARNING = 2;
+    private static final int FAULT_CODE_ACCESS_DENIED = 3;
+    private static final int FAULT_CODE_ACCESS_ERROR = 4;
+
+    private OdooJsonRpcCodec() {
+    }
+
+    static JsonParser createParser(InputStream in) throws IOException {
+        return JSON_FACTORY.createParser(in);
+    }
+
+    static JsonParser createParser(byte[] body) throws IOException {
+        return JSON_FACTORY.createParser(body);
+    }
+
+    /**
+     * Create a parser fed chunk by chunk as the body arrives, see OdooJsonRpcStreamDecoder
+     */
+    static JsonParser createNonBlockingParser() throws IOException {
+        return JSON_FACTORY.createNonBlockingByteArrayParser();
+    }
+
+    /**
+     * Write the request {"jsonrpc": "2.0", "method": "call", "params": {"service", "method", "args"}, "id"}
+     *
+     * @param out       Request body, left open
+     * @param id        JSON-RPC request id
+     * @param service   Odoo service, common or object
+     * @param method    Method name
+     * @param params    Positional parameters
+     */
+    static void writeRequest(OutputStream out, long id, String service, String method, List<Object> params) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("jsonrpc", "2.0");
+            generator.writeStringField("method", "call");
+            generator.writeObjectFieldStart("params");
+            generator.writeStringField("service", service);
+            generator.writeStringField("method", method);
+            generator.writeFieldName("args");
+            writeValue(generator, params);
+            generator.writeEndObject();
+            generator.writeNumberField("id", id);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof OdooBinaryValue) {
+            // Streamed and base64 encoded by Jackson, the file is never held in memory
+            try (InputStream in = ((OdooBinaryValue) value).getSource().getInputStream()) {
+                generator.writeBinary(in, -1);
+            }
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else if (value instanceof Date) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            format.setTimeZone(TimeZone.getTimeZone("UTC")); // Odoo datetimes are UTC
+            generator.writeString(format.format((Date) value));
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Object[]) {
+            generator.writeStartArray();
+            for (Object item : (Object[]) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else {
+            throw new IOException("Unsupported parameter type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Read {"jsonrpc", "id", "result"} or {"jsonrpc", "id", "error"}
+     *
+     * @param parser    Parser over the response body
+     * @param rowMapper Mapper of the records of a typed search_read, null for the generic result
+     * @return result   The result
+     */
+    static Object readResponse(JsonParser parser, OdooRowMapper<?> rowMapper) throws IOException, XmlRpcException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("The JSON-RPC response is not an object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if ("result".equals(name)) {
+                return rowMapper != null ? readRows(parser, rowMapper) : readValue(parser);
+            } else if ("error".equals(name)) {
+                throw fault((Map<String, Object>) readValue(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("The JSON-RPC response has neither a result nor an error");
+    }
+
+    private static <T> List<T> readRows(JsonParser parser, OdooRowMapper<T> rowMapper) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("The search_read result is not an array");
+        }
+        List<T> rows = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            rows.add(readRow(parser, rowMapper));
+        }
+        return rows;
+    }
+
+    /**
+     * Read one record into its row
+     *
+     * @param parser    Parser on the start of the record object, left on its end
+     * @param rowMapper Mapper of the record
+     * @return row      The row
+     */
+    static <T> T readRow(JsonParser parser, OdooRowMapper<T> rowMapper) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("A search_read record is not an object");
+        }
+        T row = rowMapper.newRow();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            rowMapper.setField(row, field, readValue(parser));
+        }
+        return row;
+    }
+
+    /**
+     * Read the value under the current token
+     * Description: null becomes false, as Odoo's XML-RPC marshaller sends empty fields
+     */
+    static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                Map<String, Object> map = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    map.put(name, readValue(parser));
+                }
+                return map;
+            case START_ARRAY:
+                List<Object> items = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    items.add(readValue(parser));
+                }
+                return items.toArray();
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.INT ? (Object) parser.getIntValue() : (Object) parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+            case VALUE_NULL:
+                return Boolean.FALSE;
+            default:
+                throw new IOException("Unexpected JSON token " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Turn a JSON-RPC error into the fault the XML-RPC endpoint would have returned
+     *
+     * @param error             {"code", "message", "data": {"name", "message", "debug"}}
+     * @return XmlRpcException  Fault carrying the XML-RPC fault code of the Odoo exception
+     */
+    static XmlRpcException fault(Map<String, Object> error) {
+        Object data = error.get("data");
+        String name = "";
+        String message = String.valueOf(error.get("message"));
+        if (data instanceof Map) {
+            name = String.valueOf(((Map<String, Object>) data).get("name"));
+            message = String.valueOf(((Map<String, Object>) data).get("message"));
+        }
+        int code = FAULT_CODE_APPLICATION_ERROR;
+        if (name.endsWith("AccessDenied")) {
+            code = FAULT_CODE_ACCESS_DENIED;
+        } else if (name.endsWith("AccessError")) {
+            code = FAULT_CODE_ACCESS_ERROR;
+        } else if (name.endsWith("UserError") || name.endsWith("ValidationError") || name.endsWith("Warning")) {
+            code = FAULT_CODE_WARNING;
+        }
+        return new XmlRpcException(code, name + ": " + message);
+    }
+}
@@ -0,0 +1,154 @@
+package com.gii.midapp.xmlrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.xmlrpc.XmlRpcException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoder of a JSON-RPC response fed chunk by chunk as it arrives
+ * Description: The chunks go through Jackson's non-blocking parser. When the result is an array,
+ * the tokens of each element are buffered until the element is complete, then it is decoded (into
+ * its row for a typed search_read) and the tokens dropped, so neither the body nor its tokens are
+ * held whole. Other values (a scalar result, an error) are decoded once complete.
+ * Results and errors are the same as OdooJsonRpcCodec.readResponse. Not thread-safe, one per response
+ */
+final class OdooJsonRpcStreamDecoder {
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final OdooRowMapper<?> rowMapper;
+    private int level;              // 0 before the response object, 1 in it, 2 in the result array, -1 after it
+    private String field;           // Member of the response object being read
+    private TokenBuffer value;      // Tokens of the value being read, null between values
+    private int nesting;            // Open objects and arrays of the value being read
+    private List<Object> items;     // Elements of the result array
+    private Object result;
+    private boolean hasResult;
+    private XmlRpcException fault;
+
+    /**
+     * Constructor
+     *
+     * @param rowMapper Mapper of the records of a typed search_read, null for the generic result
+     */
+    OdooJsonRpcStreamDecoder(OdooRowMapper<?> rowMapper) throws IOException {
+        this.parser = OdooJsonRpcCodec.createNonBlockingParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * Decode the next chunk of the body
+     *
+     * @param bytes     The chunk, may be kept by the parser until the next call
+     */
+    void feed(byte[] bytes) throws IOException {
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * Decode the end of the body
+     *
+     * @return result   The result
+     * @throws XmlRpcException  The fault Odoo answered, as OdooJsonRpcCodec.readResponse
+     */
+    Object finish() throws IOException, XmlRpcException {
+        feeder.endOfInput();
+        drain();
+        if (fault != null) {
+            throw fault;
+        }
+        if (!hasResult) {
+            throw new IOException("The JSON-RPC response has neither a result nor an error");
+        }
+        return result;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (value != null) {
+                buffer(token);
+                continue;
+            }
+            switch (level) {
+                case 0:
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IOException("The JSON-RPC response is not an object");
+                    }
+                    level = 1;
+                    break;
+                case 1:
+                    if (token == JsonToken.FIELD_NAME) {
+                        field = parser.getCurrentName();
+                    } else if (token == JsonToken.END_OBJECT) {
+                        level = -1;
+                    } else if ("result".equals(field) && token == JsonToken.START_ARRAY) {
+                        level = 2;
+                        items = new ArrayList<>();
+                    } else {
+                        startValue(token);
+                    }
+                    break;
+                case 2:
+                    if (token == JsonToken.END_ARRAY) {
+                        result = rowMapper != null ? items : items.toArray();
+                        hasResult = true;
+                        items = null;
+                        level = 1;
+                    } else {
+                        startValue(token);
+                    }
+                    break;
+                default:
+                    throw new IOException("Unexpected data after the JSON-RPC response");
+            }
+        }
+    }
+
+    private void startValue(JsonToken token) throws IOException {
+        value = new TokenBuffer(null, false);
+        nesting = 0;
+        buffer(token);
+    }
+
+    private void buffer(JsonToken token) throws IOException {
+        value.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+            nesting++;
+        } else if (token.isStructEnd()) {
+            nesting--;
+        }
+        if (nesting == 0) {
+            complete();
+        }
+    }
+
+    /**
+     * Decode the value just buffered, then drop its tokens
+     */
+    private void complete() throws IOException {
+        try (JsonParser buffered = value.asParser()) {
+            buffered.nextToken();
+            if (level == 2) {
+                items.add(rowMapper != null ? OdooJsonRpcCodec.readRow(buffered, rowMapper) : OdooJsonRpcCodec.readValue(buffered));
+            } else if ("result".equals(field)) {
+                if (rowMapper != null) {
+                    throw new IOException("The search_read result is not an array");
+                }
+                result = OdooJsonRpcCodec.readValue(buffered);
+                hasResult = true;
+            } else if ("error".equals(field)) {
+                fault = OdooJsonRpcCodec.fault((Map<String, Object>) OdooJsonRpcCodec.readValue(buffered));
+            }
+        }
+        value = null;
+    }
+}
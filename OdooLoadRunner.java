@@ -0,0 +1,176 @@
+package com.gii.midapp.xmlrpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs a call from several threads for a fixed time and reports throughput and latency percentiles
+ * Description: Latencies are kept in memory per thread, a run is meant to last seconds, not hours
+ */
+public final class OdooLoadRunner {
+    public static final int THREADS = 16;
+    public static final long WARMUP_MILLIS = 3000;
+    public static final long DURATION_MILLIS = 10000;
+
+    private OdooLoadRunner() {
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a call under load from THREADS threads, for DURATION_MILLIS after WARMUP_MILLIS
+     *
+     * @param name  Name of the run, used in the report
+     * @param call  The call, an exception counts as an error
+     * @return Result   Throughput, errors and latency percentiles
+     */
+    public static Result run(String name, Call call) throws InterruptedException {
+        return run(name, THREADS, WARMUP_MILLIS, DURATION_MILLIS, call);
+    }
+
+    /**
+     * Run a call under load
+     *
+     * @param name          Name of the run, used in the report
+     * @param threads       Number of concurrent callers
+     * @param warmupMillis  Time in milliseconds the call runs before measuring
+     * @param durationMillis Time in milliseconds the call is measured
+     * @param call          The call, an exception counts as an error
+     * @return Result       Throughput, errors and latency percentiles
+     */
+    public static Result run(String name, int threads, long warmupMillis, long durationMillis, Call call) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmupMillis * 1_000_000L;
+        long end = measureFrom + durationMillis * 1_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>(threads);
+        int[] counts = new int[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            long[] own = new long[1024];
+            latencies.add(own);
+            Thread thread = new Thread(() -> {
+                long[] recorded = own;
+                int count = 0;
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        boolean failed = false;
+                        try {
+                            call.run();
+                        } catch (Exception e) {
+                            failed = true;
+                        }
+                        long elapsed = System.nanoTime() - now;
+                        if (now < measureFrom) {
+                            continue;
+                        }
+                        if (failed) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == recorded.length) {
+                            recorded = Arrays.copyOf(recorded, count * 2);
+                        }
+                        recorded[count++] = elapsed;
+                    }
+                } finally {
+                    latencies.set(index, recorded);
+                    counts[index] = count;
+                    done.countDown();
+                }
+            }, "load-" + name + "-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies.get(t), 0, all, position, counts[t]);
+            position += counts[t];
+        }
+        Arrays.sort(all);
+        return new Result(name, total, errors.get(), durationMillis, all);
+    }
+
+    /**
+     * Print a run and check none of its calls failed
+     *
+     * @param result    Result of run
+     * @return Result   The same result
+     */
+    public static Result report(Result result) {
+        System.out.println(result);
+        assertEquals(0, result.getErrors(), result.getName() + " had failed calls");
+        return result;
+    }
+
+    public static final class Result {
+        private final String name;
+        private final long calls;
+        private final long errors;
+        private final long durationMillis;
+        private final long[] sortedLatencies;
+
+        private Result(String name, long calls, long errors, long durationMillis, long[] sortedLatencies) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.durationMillis = durationMillis;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return double   Calls per second, failed calls included
+         */
+        public double getThroughput() {
+            return calls * 1000.0 / durationMillis;
+        }
+
+        /**
+         * @param percentile    e.g. 99 for p99
+         * @return double       Latency in milliseconds
+         */
+        public double getLatencyMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %8.1f calls/s  errors=%d  p50=%.2fms  p95=%.2fms  p99=%.2fms  max=%.2fms",
+                    name, getThroughput(), errors, getLatencyMillis(50), getLatencyMillis(95),
+                    getLatencyMillis(99), getLatencyMillis(100));
+        }
+    }
+}
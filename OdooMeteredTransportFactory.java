@@ -0,0 +1,180 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.XmlRpcRequest;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcCommonsTransport;
+import org.apache.xmlrpc.client.XmlRpcCommonsTransportFactory;
+import org.apache.xmlrpc.client.XmlRpcHttpClientConfig;
+import org.apache.xmlrpc.client.XmlRpcTransport;
+import org.apache.xmlrpc.common.XmlRpcStreamRequestConfig;
+import org.xml.sax.SAXException;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Commons transport factory that records the request and response body sizes of every call,
+ * and applies the reply deadline of each call to its own HTTP method
+ * Description: Responses of calls made with an OdooRequestConfig are read by OdooResponseParser
+ * into typed objects instead of the generic type factory, and calls bound to an OdooQueryTemplate
+ * are sent as its precompiled request
+ */
+public class OdooMeteredTransportFactory extends XmlRpcCommonsTransportFactory {
+    private final OdooMetrics metrics;
+    private final OdooResponseParser responseParser = new OdooResponseParser();
+
+    public OdooMeteredTransportFactory(XmlRpcClient client, OdooMetrics metrics) {
+        super(client);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public XmlRpcTransport getTransport() {
+        return new MeteredTransport(this);
+    }
+
+    /**
+     * A transport is created per request, so it can hold the model and method of its call
+     */
+    private class MeteredTransport extends XmlRpcCommonsTransport {
+        private String model = "none";
+        private String method;
+
+        private MeteredTransport(XmlRpcCommonsTransportFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public Object sendRequest(XmlRpcRequest request) throws XmlRpcException {
+            method = request.getMethodName();
+            // execute_kw(db, uid, password, model, method, params)
+            if ("execute_kw".equals(method) && request.getParameterCount() > 4) {
+                model = String.valueOf(request.getParameter(3));
+                method = String.valueOf(request.getParameter(4));
+            }
+            return super.sendRequest(request);
+        }
+
+        /**
+         * Give every call the reply deadline of its own config
+         * Description: XmlRpcCommonsTransport also writes the deadline into the connection manager
+         * shared by all calls, where concurrent read and write calls would overwrite each other's.
+         * The socket timeout of the method takes precedence over the manager's
+         */
+        @Override
+        protected PostMethod newPostMethod(XmlRpcHttpClientConfig config) {
+            PostMethod post = super.newPostMethod(config);
+            post.getParams().setSoTimeout(config.getReplyTimeout());
+            return post;
+        }
+
+        @Override
+        protected void writeRequest(ReqWriter writer) throws XmlRpcException {
+            super.writeRequest(out -> {
+                CountingOutputStream counting = new CountingOutputStream(out);
+                writer.write(counting);
+                metrics.recordPayload("xmlrpc", model, method, "out", counting.count);
+            });
+        }
+
+        /**
+         * Send an execute_kw bound to an OdooQueryTemplate as the template's precompiled bytes
+         * Description: The body is complete before it is sent, so its Content-Length is always set
+         */
+        @Override
+        protected ReqWriter newReqWriter(XmlRpcRequest request) throws XmlRpcException, SAXException {
+            if (!isTemplateCall(request) || ((XmlRpcStreamRequestConfig) request.getConfig()).isGzipCompressing()) {
+                return super.newReqWriter(request);
+            }
+            byte[] body = ((OdooQueryTemplate.Call) request.getParameter(5)).toRequest(
+                    request.getParameter(0), request.getParameter(1), request.getParameter(2));
+            setContentLength(body.length);
+            return out -> {
+                out.write(body);
+                out.close();
+            };
+        }
+
+        private boolean isTemplateCall(XmlRpcRequest request) {
+            if (request.getParameterCount() != 6 || !(request.getParameter(5) instanceof OdooQueryTemplate.Call)) {
+                return false;
+            }
+            OdooQueryTemplate template = ((OdooQueryTemplate.Call) request.getParameter(5)).getTemplate();
+            return template.getModel().equals(request.getParameter(3)) && template.getMethod().equals(request.getParameter(4));
+        }
+
+        @Override
+        protected Object readResponse(XmlRpcStreamRequestConfig config, InputStream in) throws XmlRpcException {
+            if (config instanceof OdooRequestConfig) {
+                return responseParser.parse(in, ((OdooRequestConfig) config).getRowMapper());
+            }
+            return super.readResponse(config, in);
+        }
+
+        @Override
+        protected InputStream getInputStream() throws XmlRpcException {
+            return new CountingInputStream(super.getInputStream());
+        }
+
+        private class CountingInputStream extends FilterInputStream {
+            private long count;
+            private boolean recorded;
+
+            private CountingInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    count += read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!recorded) {
+                    recorded = true;
+                    metrics.recordPayload("xmlrpc", model, method, "in", count);
+                }
+                super.close();
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gii.midapp.xmlrpc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters of the Odoo client, exposed through Actuator (e.g. /actuator/prometheus)
+ * Description: Every RPC is tagged by model and method, and by the endpoint pattern of the
+ * HTTP request that triggered it, so Odoo load can be traced back to controller endpoints
+ */
+@Component
+public class OdooMetrics {
+    private final MeterRegistry registry;
+
+    @Autowired
+    public OdooMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Record the duration of one execute_kw call
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param outcome   success or error
+     * @param nanos     Duration in nanoseconds
+     */
+    public void recordCall(String model, String method, String outcome, long nanos) {
+        Timer.builder("odoo.rpc")
+                .description("Duration of execute_kw calls to Odoo")
+                .tag("model", model)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("endpoint", currentEndpoint())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count a failed execute_kw call
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param faultCode Odoo fault code, or "transport" when Odoo could not be reached
+     */
+    public void recordError(String model, String method, String faultCode) {
+        Counter.builder("odoo.rpc.errors")
+                .description("Failed execute_kw calls to Odoo")
+                .tag("model", model)
+                .tag("method", method)
+                .tag("fault_code", faultCode)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Record the size of a request or response body
+     *
+     * @param protocol  xmlrpc or jsonrpc
+     * @param model     Model name
+     * @param method    Method name
+     * @param direction out for requests, in for responses
+     * @param bytes     Body size in bytes
+     */
+    public void recordPayload(String protocol, String model, String method, String direction, long bytes) {
+        DistributionSummary.builder("odoo.rpc.payload")
+                .description("Size of RPC bodies exchanged with Odoo")
+                .baseUnit("bytes")
+                .tag("protocol", protocol)
+                .tag("model", model)
+                .tag("method", method)
+                .tag("direction", direction)
+                .register(registry)
+                .record(bytes);
+    }
+
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).description(description).register(registry);
+    }
+
+    public <T> void counter(String name, String description, T target, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, target, value).description(description).register(registry);
+    }
+
+    /**
+     * @return String   Pattern of the endpoint handling the current HTTP request, none outside a request thread
+     */
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes == null ? null
+                : attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? "none" : pattern.toString();
+    }
+}
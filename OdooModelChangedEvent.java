@@ -0,0 +1,23 @@
+package com.gii.midapp.xmlrpc;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by OdooClientApi after a write to a model succeeds,
+ * so anything holding data read from that model can drop it
+ */
+@Getter
+@AllArgsConstructor
+public class OdooModelChangedEvent {
+    private final String model;
+    private final List<Integer> ids; // Ids of the written records, empty when unknown
+    private final boolean deleted; // true when the records were unlinked
+
+    public OdooModelChangedEvent(String model) {
+        this(model, Collections.emptyList(), false);
+    }
+}
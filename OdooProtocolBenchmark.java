@@ -0,0 +1,154 @@
+package com.gii.midapp.xmlrpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.gii.midapp.model.response.PartnerResponse;
+import com.gii.midapp.xmlrpc.stub.OdooStubServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * XML-RPC and JSON-RPC side by side against the stub server
+ * Description: For each protocol and result size, the setup prints the size of the search_read
+ * response body. parse measures decoding that body into PartnerResponse alone, searchAndRead
+ * the whole call through OdooClientApi and the pooled transport; the mean payload sizes the
+ * client recorded are printed on teardown. Run with the GC profiler (see main)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OdooProtocolBenchmark {
+    private static final int STUB_UID = 2; // The uid the stub hands out
+    private static final List<Object> FIELDS = asList("id", "name", "phone", "mobile", "email", "website", "write_date");
+
+    @Param({"xmlrpc", "jsonrpc"})
+    private String protocol;
+
+    @Param({"100", "1000", "10000"})
+    private int records;
+
+    private OdooStubServer stub;
+    private SimpleMeterRegistry registry;
+    private OdooHttpTransport transport;
+    private OdooTaskExecutor taskExecutor;
+    private OdooClientApi client;
+    private List<Object> searchParams;
+    private byte[] response;
+    private final OdooResponseParser responseParser = new OdooResponseParser();
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new OdooStubServer(0);
+        stub.seed(records, 0, 0);
+        stub.start();
+        searchParams = asList(new ArrayList<>(), FIELDS, 0, records);
+
+        boolean json = "jsonrpc".equals(protocol);
+        String url = "http://localhost:" + (json ? stub.getJsonRpcPort() : stub.getPort());
+        response = post(json ? url + "/jsonrpc" : url + "/xmlrpc/2/object", json ? jsonRequest() : xmlRequest());
+        System.out.printf("%n%s search_read of %d partners: %d bytes%n", protocol, records, response.length);
+
+        registry = new SimpleMeterRegistry();
+        OdooMetrics metrics = new OdooMetrics(registry);
+        transport = OdooTestSupport.transport(protocol, 8, metrics);
+        taskExecutor = OdooTestSupport.taskExecutor(metrics);
+        client = OdooTestSupport.client(url, transport, taskExecutor, metrics, 8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (String direction : new String[]{"out", "in"}) {
+            DistributionSummary payload = registry.find("odoo.rpc.payload")
+                    .tag("method", "search_read").tag("direction", direction).summary();
+            if (payload != null) {
+                System.out.printf("%n%s search_read %s: %.0f bytes per call%n", protocol, direction, payload.mean());
+            }
+        }
+        taskExecutor.destroy();
+        transport.destroy();
+        stub.stop();
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        if ("jsonrpc".equals(protocol)) {
+            try (JsonParser parser = OdooJsonRpcCodec.createParser(response)) {
+                return OdooJsonRpcCodec.readResponse(parser, PartnerResponse.ODOO_ROW_MAPPER);
+            }
+        }
+        return responseParser.parse(new ByteArrayInputStream(response), PartnerResponse.ODOO_ROW_MAPPER);
+    }
+
+    @Benchmark
+    public List<PartnerResponse> searchAndRead() {
+        return client.searchAndRead("res.partner", searchParams, PartnerResponse.ODOO_ROW_MAPPER);
+    }
+
+    private byte[] xmlRequest() {
+        return new OdooQueryTemplate("res.partner", "search_read", searchParams).bind()
+                .toRequest(OdooTestSupport.DB, STUB_UID, OdooTestSupport.PASSWORD);
+    }
+
+    private byte[] jsonRequest() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        OdooJsonRpcCodec.writeRequest(body, 1, "object", "execute_kw", asList(OdooTestSupport.DB, STUB_UID,
+                OdooTestSupport.PASSWORD, "res.partner", "search_read", searchParams));
+        return body.toByteArray();
+    }
+
+    private static byte[] post(String url, byte[] body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", url.endsWith("/jsonrpc") ? "application/json" : "text/xml");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                response.write(buffer, 0, read);
+            }
+        }
+        return response.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OdooProtocolBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,306 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+
+@Component
+public class OdooQueryCache {
+    private static final DateTimeFormatter WRITE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OdooClientApi odooClientApi;
+    private final long ttlMillis;           // Entries older than this are always reloaded
+    private final long revalidateMillis;    // Entries younger than this are served without checking Odoo
+    private final long settleMillis;        // Watermarks younger than this may not have moved yet for a new write
+    private final Map<String, Entry> entries;
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>(); // model -> last seen max(write_date)
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param odooClientApi     Client used to read the write_date watermarks
+     * @param maxEntries        Max number of cached queries, least recently used are evicted first
+     * @param ttlMillis         Max age of an entry in milliseconds
+     * @param revalidateMillis  Age in milliseconds after which an entry is checked against Odoo
+     * @param settleMillis      Age in milliseconds under which a watermark is not trusted: write_date
+     *                          has a one second resolution, plus the clock skew between Odoo and us
+     * @param metrics           Registers the hit, miss and eviction counters
+     */
+    @Autowired
+    public OdooQueryCache(OdooClientApi odooClientApi,
+                          @Value("${odoo.cache.max-entries:1000}") int maxEntries,
+                          @Value("${odoo.cache.ttl:300000}") long ttlMillis,
+                          @Value("${odoo.cache.revalidate-after:5000}") long revalidateMillis,
+                          @Value("${odoo.cache.watermark-settle:2000}") long settleMillis,
+                          OdooMetrics metrics) {
+        this.odooClientApi = odooClientApi;
+        this.ttlMillis = ttlMillis;
+        this.revalidateMillis = revalidateMillis;
+        this.settleMillis = settleMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        metrics.counter("odoo.cache.hits", "Odoo query cache hits", hits, AtomicLong::get);
+        metrics.counter("odoo.cache.misses", "Odoo query cache misses", misses, AtomicLong::get);
+        metrics.counter("odoo.cache.evictions", "Odoo query cache evictions", evictions, AtomicLong::get);
+        metrics.gauge("odoo.cache.size", "Odoo query cache entries", this, OdooQueryCache::size);
+    }
+
+    /**
+     * Get a cached query result or load it
+     * Description: A cached result is kept as long as max(write_date) of every model it was
+     * read from is unchanged, which costs one search_read of a single field per model
+     * instead of reloading the whole result
+     *
+     * @param key       Key identifying the query and its parameters
+     * @param models    Models the result is read from
+     * @param loader    Loads the result from Odoo on a miss
+     * @return result   The cached or freshly loaded result
+     */
+    public <T> T get(String key, List<String> models, Supplier<T> loader) {
+        T cached = lookup(key, models);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Read the watermarks before the data, a write landing in between only causes an extra reload
+        Map<String, String> currentWatermarks = readWatermarks(models);
+        T value = loader.get();
+        store(key, models, currentWatermarks, value);
+        return value;
+    }
+
+    /**
+     * Get cached records by id, loading all the missing ones at once
+     * Description: Each record is cached under its own key, so records shared by several
+     * queries are only read once and the loader is called at most once per lookup
+     *
+     * @param prefix    Key prefix of the records, the id is appended to it
+     * @param ids       Ids of the records
+     * @param models    Models the records are read from
+     * @param loader    Loads the missing records from Odoo in one call, keyed by id
+     * @return records  The cached and loaded records keyed by id, ids not found in Odoo are absent,
+     *                  null if the missing records could not be loaded
+     */
+    public <K, V> Map<K, V> getAll(String prefix, Collection<K> ids, List<String> models, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K id : ids) {
+            V cached = lookup(prefix + id, models);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, String> currentWatermarks = readWatermarks(models);
+        Map<K, V> loaded = loader.apply(missing);
+        if (loaded == null) {
+            return null;
+        }
+        for (Map.Entry<K, V> record : loaded.entrySet()) {
+            store(prefix + record.getKey(), models, currentWatermarks, record.getValue());
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Get max(write_date) of the models, as cached for the query cache
+     *
+     * @param models    Model names
+     * @return Map      Watermark per model, empty if a model has no records, null if Odoo could not be read
+     *                  or the model was written too recently for its watermark to be trusted
+     */
+    public Map<String, String> getWatermarks(List<String> models) {
+        return readWatermarks(models);
+    }
+
+    /**
+     * Drop every cached result read from a model
+     *
+     * @param model Model name
+     */
+    public void invalidate(String model) {
+        watermarks.remove(model);
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.models.contains(model));
+        }
+    }
+
+    @EventListener
+    public void onModelChanged(OdooModelChangedEvent event) {
+        invalidate(event.getModel());
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private <T> T lookup(String key, List<String> models) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && now - entry.loadedAt < ttlMillis) {
+            // Only a watermark read since the entry was last checked tells something new, so a result is
+            // at most revalidateMillis stale instead of twice that when the watermark was cached too
+            if (now - entry.checkedAt < revalidateMillis || entry.watermarks.equals(readWatermarks(models, entry.checkedAt))) {
+                entry.checkedAt = now;
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void store(String key, List<String> models, Map<String, String> watermarks, Object value) {
+        // Don't cache failed reads or results whose watermark could not be read
+        if (value == null || watermarks.containsValue(null)) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(value, models, watermarks, System.currentTimeMillis()));
+        }
+    }
+
+    private Map<String, String> readWatermarks(List<String> models) {
+        return readWatermarks(models, 0);
+    }
+
+    private Map<String, String> readWatermarks(List<String> models, long notBefore) {
+        Map<String, String> result = new HashMap<>();
+        for (String model : models) {
+            result.put(model, readWatermark(model, notBefore));
+        }
+        return result;
+    }
+
+    /**
+     * Read max(write_date) of a model
+     * Description: The value is shared by every entry of the model and only re-read
+     * once it is older than the revalidation interval. write_date only has a one second
+     * resolution, so a write landing in the same second as the latest one doesn't move it:
+     * a watermark that recent is neither trusted nor kept, nothing is cached against it
+     *
+     * @param model     Model name
+     * @param notBefore A cached value read before this time is read again
+     * @return String   The latest write_date, empty if the model has no records, null if Odoo could not
+     *                  be read or the latest write is too recent
+     */
+    private String readWatermark(String model, long notBefore) {
+        long now = System.currentTimeMillis();
+        Watermark watermark = watermarks.get(model);
+        if (watermark != null && now - watermark.checkedAt < revalidateMillis && watermark.checkedAt >= notBefore) {
+            return watermark.value;
+        }
+        List<Object> resp;
+        try {
+            resp = odooClientApi.searchAndRead(model, asList(
+                    asList(),
+                    asList("write_date"),
+                    0,
+                    1,
+                    "write_date desc"
+            ));
+        } catch (OdooException e) {
+            return null;
+        }
+        String value = resp.isEmpty() ? "" : String.valueOf(((Map<String, Object>) resp.get(0)).get("write_date"));
+        if (isSettling(value, now)) {
+            watermarks.remove(model);
+            return null;
+        }
+        watermarks.put(model, new Watermark(value, now));
+        return value;
+    }
+
+    /**
+     * Check whether more writes may still land in the second of a watermark without moving it
+     *
+     * @param value     write_date as sent by Odoo, in UTC
+     * @param now       Time the watermark was read
+     * @return boolean  true if the watermark is younger than the settle time
+     */
+    private boolean isSettling(String value, long now) {
+        if (value.length() < 19) {
+            return false; // No records
+        }
+        try {
+            long writtenAt = LocalDateTime.parse(value.substring(0, 19), WRITE_DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+            return now - writtenAt < settleMillis;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final List<String> models;
+        private final Map<String, String> watermarks;
+        private final long loadedAt;
+        private volatile long checkedAt;
+
+        private Entry(Object value, List<String> models, Map<String, String> watermarks, long loadedAt) {
+            this.value = value;
+            this.models = models;
+            this.watermarks = watermarks;
+            this.loadedAt = loadedAt;
+            this.checkedAt = loadedAt;
+        }
+    }
+
+    private static class Watermark {
+        private final String value;
+        private final long checkedAt;
+
+        private Watermark(String value, long checkedAt) {
+            this.value = value;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
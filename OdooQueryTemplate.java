@@ -0,0 +1,290 @@
+package com.gii.midapp.xmlrpc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * execute_kw call declared once, with placeholders for the values that change between calls
+ * Description: The model, method and parameters are encoded to XML-RPC when the template is
+ * created, split around the placeholders. A bound call only encodes the session (db, uid,
+ * password) and its own values, the constant bytes are copied as they are.
+ * A bound call is also the List of its parameters, so it can be passed wherever parameters
+ * are expected and is sent the usual way over JSON-RPC.
+ * Templates accept String, Integer, Boolean, Double, List, Object[] and Map values
+ */
+public final class OdooQueryTemplate {
+    private static final byte[] REQUEST_START = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<methodCall><methodName>execute_kw</methodName><params>").getBytes(StandardCharsets.UTF_8);
+
+    private final String model;
+    private final String method;
+    private final List<Object> params;
+    private final int placeholderCount;
+    private final byte[][] segments; // Constant bytes between the placeholders, one more than slots
+    private final int[] slots;       // Index of the value written after each segment but the last
+    private final int constantLength;
+
+    /**
+     * Constructor
+     *
+     * @param model     Model name
+     * @param method    Method name
+     * @param params    Positional parameters of the method, values that change between calls are param(i)
+     */
+    public OdooQueryTemplate(String model, String method, List<Object> params) {
+        this.model = model;
+        this.method = method;
+        this.params = params;
+
+        List<byte[]> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        current.append("<param>");
+        encode(current, model);
+        current.append("</param><param>");
+        encode(current, method);
+        current.append("</param><param>");
+        compile(current, params, segments, slots);
+        current.append("</param></params></methodCall>");
+        segments.add(current.toString().getBytes(StandardCharsets.UTF_8));
+
+        this.segments = segments.toArray(new byte[0][]);
+        this.slots = new int[slots.size()];
+        int count = 0;
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = slots.get(i);
+            count = Math.max(count, this.slots[i] + 1);
+        }
+        this.placeholderCount = count;
+        int length = REQUEST_START.length;
+        for (byte[] segment : this.segments) {
+            length += segment.length;
+        }
+        this.constantLength = length;
+    }
+
+    /**
+     * Placeholder of a value given to bind
+     *
+     * @param index         Position of the value in bind
+     * @return Placeholder  The placeholder
+     */
+    public static Placeholder param(int index) {
+        return new Placeholder(index);
+    }
+
+    /**
+     * Bind the values of the placeholders
+     *
+     * @param values    One value per placeholder, in the order of their index
+     * @return Call     The call, to be given to OdooClientApi
+     */
+    public Call bind(Object... values) {
+        if (values.length != placeholderCount) {
+            throw new IllegalArgumentException(model + "." + method + " template expects " + placeholderCount
+                    + " values, got " + values.length);
+        }
+        return new Call(this, values);
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Encode the parameters, cutting a segment at every placeholder
+     */
+    private static void compile(StringBuilder current, Object value, List<byte[]> segments, List<Integer> slots) {
+        if (value instanceof Placeholder) {
+            segments.add(current.toString().getBytes(StandardCharsets.UTF_8));
+            slots.add(((Placeholder) value).index);
+            current.setLength(0);
+        } else if (value instanceof Collection || value instanceof Object[]) {
+            current.append("<value><array><data>");
+            for (Object item : value instanceof Object[] ? Arrays.asList((Object[]) value) : (Collection<?>) value) {
+                compile(current, item, segments, slots);
+            }
+            current.append("</data></array></value>");
+        } else if (value instanceof Map) {
+            current.append("<value><struct>");
+            for (Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()) {
+                current.append("<member><name>");
+                escape(current, String.valueOf(member.getKey()));
+                current.append("</name>");
+                compile(current, member.getValue(), segments, slots);
+                current.append("</member>");
+            }
+            current.append("</struct></value>");
+        } else {
+            encode(current, value);
+        }
+    }
+
+    /**
+     * Encode a value to XML-RPC
+     *
+     * @param out   Receives the value element
+     * @param value Value to encode
+     */
+    private static void encode(StringBuilder out, Object value) {
+        if (value instanceof String) {
+            out.append("<value><string>");
+            escape(out, (String) value);
+            out.append("</string></value>");
+        } else if (value instanceof Integer) {
+            out.append("<value><i4>").append(value).append("</i4></value>");
+        } else if (value instanceof Boolean) {
+            out.append("<value><boolean>").append((Boolean) value ? '1' : '0').append("</boolean></value>");
+        } else if (value instanceof Double || value instanceof Float) {
+            out.append("<value><double>").append(value).append("</double></value>");
+        } else if (value instanceof Collection || value instanceof Object[] || value instanceof Map) {
+            List<byte[]> segments = new ArrayList<>();
+            compile(out, value, segments, new ArrayList<>());
+            if (!segments.isEmpty()) {
+                throw new IllegalArgumentException("A bound value can't hold a placeholder");
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported template value: "
+                    + (value == null ? "null" : value.getClass().getName()));
+        }
+    }
+
+    private static void escape(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '\r':
+                    out.append("&#13;"); // A raw CR would be normalized away by the XML parser
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Replace the placeholders by their values
+     */
+    private static Object resolve(Object value, Object[] values) {
+        if (value instanceof Placeholder) {
+            return values[((Placeholder) value).index];
+        }
+        if (value instanceof Collection || value instanceof Object[]) {
+            Collection<?> items = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Collection<?>) value;
+            List<Object> resolved = new ArrayList<>(items.size());
+            for (Object item : items) {
+                resolved.add(resolve(item, values));
+            }
+            return resolved;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> resolved = new LinkedHashMap<>(); // Same member order as the compiled bytes
+            for (Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()) {
+                resolved.put(member.getKey(), resolve(member.getValue(), values));
+            }
+            return resolved;
+        }
+        return value;
+    }
+
+    public static final class Placeholder {
+        private final int index;
+
+        private Placeholder(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Template bound to its values, the List of the resolved parameters
+     * Description: Equal, as a List, to any list of the same parameters, so identical concurrent
+     * reads are still shared by OdooClientApi, whose key holds the model and method
+     */
+    public static final class Call extends AbstractList<Object> {
+        private final OdooQueryTemplate template;
+        private final Object[] values;
+        private volatile List<Object> resolved; // Built on first access: JSON-RPC, equals and hashCode, never toRequest
+
+        private Call(OdooQueryTemplate template, Object[] values) {
+            this.template = template;
+            this.values = values;
+        }
+
+        public OdooQueryTemplate getTemplate() {
+            return template;
+        }
+
+        /**
+         * Write the complete execute_kw request
+         *
+         * @param db        Database name
+         * @param uid       Session uid
+         * @param password  Password
+         * @return byte[]   Request body
+         */
+        public byte[] toRequest(Object db, Object uid, Object password) {
+            StringBuilder session = new StringBuilder(128);
+            session.append("<param>");
+            encode(session, db);
+            session.append("</param><param>");
+            encode(session, uid);
+            session.append("</param><param>");
+            encode(session, password);
+            session.append("</param>");
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(template.constantLength + session.length() + 64 * values.length);
+            StringBuilder value = new StringBuilder();
+            writeBytes(out, REQUEST_START);
+            writeBytes(out, session.toString().getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < template.slots.length; i++) {
+                writeBytes(out, template.segments[i]);
+                value.setLength(0);
+                encode(value, values[template.slots[i]]);
+                writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            writeBytes(out, template.segments[template.segments.length - 1]);
+            return out.toByteArray();
+        }
+
+        @Override
+        public Object get(int index) {
+            if (resolved == null) {
+                List<Object> params = new ArrayList<>(template.params.size());
+                for (Object param : template.params) {
+                    params.add(resolve(param, values));
+                }
+                resolved = params;
+            }
+            return resolved.get(index);
+        }
+
+        @Override
+        public int size() {
+            return template.params.size();
+        }
+
+        private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooException;
+import com.gii.midapp.exception.OdooFaultException;
+import com.gii.midapp.exception.OdooUnavailableException;
+import org.apache.xmlrpc.XmlRpcException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Non-blocking Odoo client returning Mono/Flux
+ * Description: Calls go to /jsonrpc on a reactive WebClient, so a call waiting for Odoo holds no
+ * thread, only a connection. Calls share the bulkhead and circuit breaker of OdooClientApi, the
+ * slot is waited for without blocking. Responses are decoded by OdooJsonRpcStreamDecoder as the
+ * body arrives, so results and errors are the same as with OdooClientApi. Only read methods are offered
+ */
+@Component
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class OdooReactiveClientApi {
+    private final String db;
+    private final String username;
+    private final String password;
+    private final WebClient webClient;
+    private final Duration readTimeout;
+    private final OdooMetrics metrics;
+    private final OdooBulkhead bulkhead;               // Shared with OdooClientApi, Odoo's workers are the same
+    private final OdooCircuitBreaker circuitBreaker;   // Shared with OdooClientApi
+    private final AtomicLong requestIds = new AtomicLong();
+    private volatile Mono<Integer> uid; // Cached login, replaced when Odoo rejects it
+
+    /**
+     * Constructor
+     *
+     * @param url               URL of the Odoo server
+     * @param db                Database name
+     * @param username          Username
+     * @param password          Password
+     * @param clientApi         Blocking client whose bulkhead and circuit breaker are shared
+     * @param resilience        Read deadline
+     * @param metrics           Micrometer meters of the calls
+     */
+    @Autowired
+    public OdooReactiveClientApi(@Value("${odoo.datasource.url}") String url,
+                                 @Value("${odoo.datasource.db}") String db,
+                                 @Value("${odoo.datasource.username}") String username,
+                                 @Value("${odoo.datasource.password}") String password,
+                                 OdooClientApi clientApi,
+                                 OdooResilienceConfig resilience,
+                                 OdooMetrics metrics) {
+        this.db = db;
+        this.username = username;
+        this.password = password;
+        this.webClient = WebClient.builder()
+                .baseUrl(url)
+                .build();
+        this.readTimeout = Duration.ofMillis(resilience.getReadTimeout());
+        this.metrics = metrics;
+        this.bulkhead = clientApi.getBulkhead();
+        this.circuitBreaker = clientApi.getCircuitBreaker();
+        this.uid = login();
+    }
+
+    /**
+     * Search and read records
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @return records      List of records
+     */
+    public Mono<List<Object>> searchAndRead(String model, List<Object> searchParams) {
+        return execute(model, "search_read", searchParams, null, OdooCallPriority.INTERACTIVE)
+                .map(result -> asList((Object[]) result));
+    }
+
+    /**
+     * Search and read records into typed objects
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @param rowMapper     Mapper of the records
+     * @return records      One object per record
+     */
+    public <T> Mono<List<T>> searchAndRead(String model, List<Object> searchParams, OdooRowMapper<T> rowMapper) {
+        return execute(model, "search_read", searchParams, rowMapper, OdooCallPriority.INTERACTIVE)
+                .map(result -> (List<T>) result);
+    }
+
+    /**
+     * Search and read records into typed objects with a precompiled request
+     *
+     * @param call      search_read template bound to its values
+     * @param rowMapper Mapper of the records
+     * @return records  One object per record
+     */
+    public <T> Mono<List<T>> searchAndRead(OdooQueryTemplate.Call call, OdooRowMapper<T> rowMapper) {
+        return searchAndRead(call.getTemplate().getModel(), call, rowMapper);
+    }
+
+    /**
+     * Search Count
+     *
+     * @param model         Model name
+     * @param searchParams  Search parameters
+     * @return count        Number of records
+     */
+    public Mono<Integer> searchCount(String model, List<Object> searchParams) {
+        return execute(model, "search_count", searchParams, null, OdooCallPriority.INTERACTIVE)
+                .map(result -> (Integer) result);
+    }
+
+    /**
+     * Read every record matching a domain, page by page on id
+     * Description: The next page is only requested from Odoo once the subscriber asked for
+     * more than the pages already read, so a slow consumer slows down the reads instead of
+     * records piling up in memory. Pages are read as bulk calls
+     *
+     * @param model     Model name
+     * @param domain    Search domain
+     * @param fields    Fields to read, id is always read
+     * @param pageSize  Records per call
+     * @return Flux     One list per page, in id order
+     */
+    public Flux<List<Object>> streamPages(String model, List<Object> domain, List<Object> fields, int pageSize) {
+        return readPage(model, domain, fields, 0, pageSize)
+                .expand(page -> {
+                    if (page.size() < pageSize) {
+                        return Mono.empty();
+                    }
+                    Map<String, Object> last = (Map<String, Object>) page.get(page.size() - 1);
+                    return readPage(model, domain, fields, ((Number) last.get("id")).intValue(), pageSize);
+                })
+                .filter(page -> !page.isEmpty());
+    }
+
+    private Mono<List<Object>> readPage(String model, List<Object> domain, List<Object> fields, int afterId, int pageSize) {
+        List<Object> pageDomain = new ArrayList<>(domain);
+        pageDomain.add(asList("id", ">", afterId));
+        return execute(model, "search_read", asList(pageDomain, fields, 0, pageSize, "id asc"), null, OdooCallPriority.BULK)
+                .map(result -> asList((Object[]) result));
+    }
+
+    /**
+     * Execute a method on a model, logging in again once if Odoo rejects the cached uid
+     */
+    private Mono<Object> execute(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper,
+                                 OdooCallPriority priority) {
+        Mono<Integer> currentUid = uid;
+        return currentUid
+                .flatMap(id -> call(model, method, params, rowMapper, id, priority))
+                .onErrorResume(OdooFaultException.class, fault -> {
+                    if (!isAccessDenied(fault)) {
+                        return Mono.error(fault);
+                    }
+                    if (uid == currentUid) {
+                        uid = login();
+                    }
+                    return uid.flatMap(id -> call(model, method, params, rowMapper, id, priority));
+                });
+    }
+
+    /**
+     * Send one call through the bulkhead and circuit breaker
+     * Description: The same rules as OdooClientApi.execute: the slot is released with the
+     * latency of a call that reached Odoo, as a drop when it couldn't, and without a sample for
+     * faults and cancelled calls. Whatever ends the call (outcome, wait timeout, cancel), the
+     * slot and the breaker's permission are given back exactly once
+     */
+    private Mono<Object> call(String model, String method, List<Object> params, OdooRowMapper<?> rowMapper,
+                              int currentUid, OdooCallPriority priority) {
+        String operation = model + "." + method;
+        long maxWaitMillis = bulkhead.getMaxWaitMillis();
+        return Mono.defer(() -> {
+            CompletableFuture<Void> permit = bulkhead.acquireAsync(priority);
+            AtomicReference<Phase> phase = new AtomicReference<>(Phase.WAITING);
+            return Mono.fromFuture(permit)
+                    .timeout(Duration.ofMillis(maxWaitMillis))
+                    .onErrorMap(TimeoutException.class, e -> new OdooUnavailableException(
+                            "Too many concurrent Odoo calls, " + operation + " rejected after " + maxWaitMillis + " ms"))
+                    .then(Mono.defer(() -> {
+                        if (!phase.compareAndSet(Phase.WAITING, Phase.SENT)) {
+                            return Mono.empty(); // Cancelled while the slot was granted, already given back
+                        }
+                        try {
+                            circuitBreaker.acquirePermission(operation);
+                        } catch (OdooUnavailableException e) {
+                            phase.set(Phase.DONE);
+                            bulkhead.release();
+                            return Mono.error(e);
+                        }
+                        long start = System.nanoTime();
+                        return post("object", "execute_kw", asList(db, currentUid, password, model, method, params), rowMapper)
+                                .doOnSuccess(result -> {
+                                    long nanos = System.nanoTime() - start;
+                                    metrics.recordCall(model, method, "success", nanos);
+                                    if (phase.compareAndSet(Phase.SENT, Phase.DONE)) {
+                                        circuitBreaker.onSuccess();
+                                        bulkhead.release(operation, OdooBulkhead.rowsOf(result), nanos, false);
+                                    }
+                                })
+                                .doOnError(e -> {
+                                    long nanos = System.nanoTime() - start;
+                                    boolean faulted = e instanceof OdooFaultException;
+                                    metrics.recordCall(model, method, "error", nanos);
+                                    metrics.recordError(model, method, faulted
+                                            ? String.valueOf(((OdooFaultException) e).getFaultCode()) : "transport");
+                                    if (phase.compareAndSet(Phase.SENT, Phase.DONE)) {
+                                        if (faulted) {
+                                            circuitBreaker.onSuccess(); // Odoo answered
+                                            bulkhead.release();
+                                        } else {
+                                            circuitBreaker.onFailure();
+                                            bulkhead.release(operation, 0, nanos, true);
+                                        }
+                                    }
+                                });
+                    }))
+                    .doOnError(e -> abandon(phase, permit))
+                    .doOnCancel(() -> {
+                        if (phase.compareAndSet(Phase.SENT, Phase.DONE)) {
+                            circuitBreaker.onCancel();
+                            bulkhead.release();
+                        } else {
+                            abandon(phase, permit);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Give back a slot that was waited for but never used to send the call
+     */
+    private void abandon(AtomicReference<Phase> phase, CompletableFuture<Void> permit) {
+        if (phase.compareAndSet(Phase.WAITING, Phase.DONE) && !bulkhead.cancel(permit)) {
+            bulkhead.release(); // Granted in the meantime
+        }
+    }
+
+    /**
+     * Log in, the uid is cached until Odoo rejects it
+     */
+    private Mono<Integer> login() {
+        Map<String, Object> userAgentEnv = new HashMap<>();
+        return post("common", "authenticate", asList(db, username, password, userAgentEnv), null)
+                .flatMap(result -> result instanceof Integer
+                        ? Mono.just((Integer) result)
+                        : Mono.<Integer>error(new OdooFaultException(3, "Authentication failed for user " + username, null)))
+                .cache(id -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Post one JSON-RPC call
+     * Description: The response body is fed to the decoder chunk by chunk as it arrives,
+     * each chunk is released once decoded
+     *
+     * @return Mono The result, OdooFaultException for Odoo errors and unreadable responses,
+     *              OdooUnavailableException when Odoo can't be reached in time
+     */
+    private Mono<Object> post(String service, String method, List<Object> params, OdooRowMapper<?> rowMapper) {
+        String operation = service + "." + method;
+        return Mono.fromCallable(() -> {
+                    ByteArrayOutputStream body = new ByteArrayOutputStream();
+                    OdooJsonRpcCodec.writeRequest(body, requestIds.incrementAndGet(), service, method, params);
+                    return body.toByteArray();
+                })
+                .flatMap(body -> {
+                    OdooJsonRpcStreamDecoder decoder;
+                    try {
+                        decoder = new OdooJsonRpcStreamDecoder(rowMapper);
+                    } catch (IOException e) {
+                        return Mono.error(e);
+                    }
+                    return webClient.post()
+                            .uri("/jsonrpc")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(body)
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .doOnNext(chunk -> feed(decoder, chunk, operation))
+                            .then(Mono.fromCallable(() -> finish(decoder, operation)));
+                })
+                .timeout(readTimeout)
+                .onErrorMap(e -> !(e instanceof OdooException),
+                        e -> new OdooUnavailableException("Odoo could not be reached for " + operation + ": " + e.getMessage(), e));
+    }
+
+    private static void feed(OdooJsonRpcStreamDecoder decoder, DataBuffer chunk, String operation) {
+        try {
+            byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            decoder.feed(bytes);
+        } catch (IOException | RuntimeException e) {
+            throw invalidResponse(operation, e);
+        } finally {
+            DataBufferUtils.release(chunk);
+        }
+    }
+
+    private static Object finish(OdooJsonRpcStreamDecoder decoder, String operation) {
+        try {
+            return decoder.finish();
+        } catch (XmlRpcException xe) {
+            throw new OdooFaultException(xe.code, "Odoo rejected " + operation + ": " + xe.getMessage(), xe);
+        } catch (IOException | RuntimeException e) {
+            throw invalidResponse(operation, e);
+        }
+    }
+
+    /**
+     * Odoo answered but the response can't be read: a fault, not a transport failure, as OdooInvalidResponseException
+     */
+    private static OdooFaultException invalidResponse(String operation, Exception e) {
+        return new OdooFaultException(OdooInvalidResponseException.FAULT_CODE_INVALID_RESPONSE,
+                "Odoo rejected " + operation + ": invalid response: " + e.getMessage(), e);
+    }
+
+    private static boolean isAccessDenied(OdooFaultException fault) {
+        String message = fault.getMessage();
+        return fault.getFaultCode() == 3 || message != null && message.contains("AccessDenied");
+    }
+
+    private enum Phase { WAITING, SENT, DONE }
+}
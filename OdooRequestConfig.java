@@ -0,0 +1,34 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+
+/**
+ * Models server configuration carrying the row mapper of a typed search_read
+ * Description: The transport reads the response of a call made with this configuration
+ * through OdooResponseParser straight into the mapper's objects
+ */
+public class OdooRequestConfig extends XmlRpcClientConfigImpl {
+    private final OdooRowMapper<?> rowMapper;
+
+    /**
+     * Constructor
+     *
+     * @param base      Configuration to copy the server URL and timeouts from
+     * @param rowMapper Mapper of the records in the response
+     */
+    public OdooRequestConfig(XmlRpcClientConfigImpl base, OdooRowMapper<?> rowMapper) {
+        setServerURL(base.getServerURL());
+        setConnectionTimeout(base.getConnectionTimeout());
+        setReplyTimeout(base.getReplyTimeout());
+        setContentLengthOptional(base.isContentLengthOptional());
+        setEnabledForExtensions(base.isEnabledForExtensions());
+        setGzipCompressing(base.isGzipCompressing());
+        setGzipRequesting(base.isGzipRequesting());
+        setEncoding(base.getEncoding());
+        this.rowMapper = rowMapper;
+    }
+
+    public OdooRowMapper<?> getRowMapper() {
+        return rowMapper;
+    }
+}
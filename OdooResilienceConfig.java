@@ -0,0 +1,37 @@
+package com.gii.midapp.xmlrpc;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class OdooResilienceConfig {
+    // Reply deadline of read calls (search_read, search_count, name_get) in milliseconds
+    @Value("${odoo.timeout.read:10000}")
+    private int readTimeout;
+
+    // Reply deadline of write calls (create, write, unlink) in milliseconds
+    @Value("${odoo.timeout.write:30000}")
+    private int writeTimeout;
+
+    // Consecutive failed calls that open the circuit breaker
+    @Value("${odoo.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    // Time in milliseconds the circuit breaker stays open
+    @Value("${odoo.circuit-breaker.open-duration:30000}")
+    private long openDuration;
+
+    // Max attempts of a read call failing with an I/O error or timeout
+    @Value("${odoo.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    // Base backoff in milliseconds between attempts, doubled each attempt with full jitter
+    @Value("${odoo.retry.backoff:100}")
+    private long backoff;
+
+    // Delay in milliseconds before a slow search_read is sent a second time, 0 disables hedging
+    @Value("${odoo.hedge.delay:0}")
+    private long hedgeDelay;
+}
@@ -0,0 +1,85 @@
+package com.gii.midapp.model.response;
+
+import com.gii.midapp.xmlrpc.OdooBenchmarkRecords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of search_read results into the response objects
+ * Description: The records are built once per size, so only the mappers are measured, date
+ * parsing of BaseOdooResponse.stringToDate included for locations and divisions.
+ * Run with the GC profiler (see main) and compare gc.alloc.rate.norm between versions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OdooResponseMapperBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    private int records;
+
+    private List<Object> partners;
+    private List<Object> locations;
+    private List<Object> location;
+    private List<Object> divisions;
+    private Map<Long, DivisionResponse> divisionsById;
+
+    @Setup
+    public void setUp() {
+        partners = OdooBenchmarkRecords.partners(records);
+        locations = OdooBenchmarkRecords.locations(records, 20);
+        location = Collections.singletonList(locations.get(0));
+        divisions = OdooBenchmarkRecords.divisions(records);
+        divisionsById = LocationResponse.divisionsFromOdooResponse(OdooBenchmarkRecords.divisions(20));
+    }
+
+    @Benchmark
+    public List<PartnerResponse> partnerFromOdooResponse() {
+        return PartnerResponse.fromOdooResponse(partners);
+    }
+
+    @Benchmark
+    public List<LocationListResponse> locationListFromOdooResponseMapper() {
+        return LocationListResponse.fromOdooResponseMapper(locations);
+    }
+
+    /**
+     * One location with every division, as getLocationById maps it
+     */
+    @Benchmark
+    public LocationResponse locationFromOdooResponseMapper() {
+        return LocationResponse.fromOdooResponseMapper(location, divisions);
+    }
+
+    @Benchmark
+    public List<LocationResponse> locationsFromOdooResponseListMapper() {
+        return LocationResponse.fromOdooResponseListMapper(locations, divisionsById);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OdooResponseMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,197 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClientException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StAX parser of search_read responses
+ * Description: Reads the array of records from the response stream and hands every member
+ * to an OdooRowMapper, instead of building an Object[] of HashMap through the generic type
+ * factory first. Only the values of the members are materialized
+ */
+public class OdooResponseParser {
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // The response comes from the network, never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Parse a search_read response
+     *
+     * @param in        The response body
+     * @param mapper    Mapper of the records
+     * @return List     One object per record, in the order of the response
+     * @throws XmlRpcException  The fault returned by Odoo, XmlRpcClientException if the body can't be read
+     *                          or OdooInvalidResponseException if it can't be parsed or mapped
+     */
+    public <T> List<T> parse(InputStream in, OdooRowMapper<T> mapper) throws XmlRpcException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            reader.nextTag(); // methodResponse
+            reader.nextTag(); // params or fault
+            if ("fault".equals(reader.getLocalName())) {
+                reader.nextTag(); // value
+                Map<String, Object> fault = (Map<String, Object>) readValue(reader);
+                throw new XmlRpcException(((Number) fault.get("faultCode")).intValue(), String.valueOf(fault.get("faultString")));
+            }
+            reader.nextTag(); // param
+            reader.nextTag(); // value
+            expect(reader, "array");
+            reader.nextTag(); // data
+
+            List<T> rows = new ArrayList<>();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) { // value of a record
+                expect(reader, "struct");
+                T row = mapper.newRow();
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) { // member
+                    reader.nextTag(); // name
+                    String field = reader.getElementText();
+                    reader.nextTag(); // value
+                    mapper.setField(row, field, readValue(reader));
+                    reader.nextTag(); // end of member
+                }
+                reader.nextTag(); // end of value
+                rows.add(row);
+            }
+            return rows;
+        } catch (XMLStreamException | RuntimeException e) {
+            if (isReadFailure(e)) {
+                throw new XmlRpcClientException("Failed to read the search_read response: " + e.getMessage(), e);
+            }
+            throw new OdooInvalidResponseException("Failed to parse the search_read response: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // The transport closes the stream itself
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether parsing stopped because the body couldn't be read from the connection
+     *
+     * @param e         The exception raised while parsing
+     * @return boolean  true for an I/O error under the parser, false for a malformed body or a mapper error
+     */
+    private static boolean isReadFailure(Exception e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the next element has the given name
+     *
+     * @param reader    Reader positioned before the element
+     * @param name      Expected element name
+     */
+    private static void expect(XMLStreamReader reader, String name) throws XMLStreamException {
+        if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !name.equals(reader.getLocalName())) {
+            throw new XMLStreamException("Expected <" + name + "> but got " + reader.getLocalName(), reader.getLocation());
+        }
+    }
+
+    /**
+     * Read a value element
+     * Description: A value without a type element is a string, as in the XML-RPC spec
+     *
+     * @param reader    Reader positioned on the start of the value element, left on its end
+     * @return value    The value
+     */
+    private static Object readValue(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = null;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                Object value = readTyped(reader);
+                reader.nextTag(); // end of value
+                return value;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return text == null ? "" : text.toString();
+            }
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                if (text == null) {
+                    text = new StringBuilder();
+                }
+                text.append(reader.getText());
+            }
+        }
+    }
+
+    private static Object readTyped(XMLStreamReader reader) throws XMLStreamException {
+        String type = reader.getLocalName();
+        switch (type) {
+            case "string":
+                return reader.getElementText();
+            case "int":
+            case "i4":
+                return Integer.valueOf(reader.getElementText().trim());
+            case "i8":
+                return Long.valueOf(reader.getElementText().trim());
+            case "boolean":
+                return "1".equals(reader.getElementText().trim());
+            case "double":
+                return Double.valueOf(reader.getElementText().trim());
+            case "base64":
+                return Base64.getMimeDecoder().decode(reader.getElementText());
+            case "nil":
+                reader.getElementText();
+                return null;
+            case "dateTime.iso8601":
+                String date = reader.getElementText().trim();
+                try {
+                    return new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss").parse(date);
+                } catch (ParseException e) {
+                    throw new XMLStreamException("Invalid dateTime.iso8601 value: " + date, reader.getLocation());
+                }
+            case "array":
+                reader.nextTag(); // data
+                List<Object> items = new ArrayList<>();
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    items.add(readValue(reader));
+                }
+                reader.nextTag(); // end of array
+                return items.toArray();
+            case "struct":
+                Map<String, Object> members = new HashMap<>();
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    reader.nextTag(); // name
+                    String name = reader.getElementText();
+                    reader.nextTag(); // value
+                    members.put(name, readValue(reader));
+                    reader.nextTag(); // end of member
+                }
+                return members;
+            default:
+                throw new XMLStreamException("Unsupported XML-RPC type " + type, reader.getLocation());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.gii.midapp.xmlrpc;
+
+/**
+ * Builds a typed object from one record returned by search_read
+ * Description: The streaming parser calls setField for every member of the record as it reads
+ * it from the response, so no intermediate map is created. Values keep their XML-RPC type:
+ * String, Integer, Boolean, Double, Object[] for arrays (e.g. many2one [id, name]) and Map for structs
+ *
+ * @param <T> Type of the built object
+ */
+public interface OdooRowMapper<T> {
+    /**
+     * Create the object of a new record
+     *
+     * @return row  An empty object
+     */
+    T newRow();
+
+    /**
+     * Set one field of the record
+     *
+     * @param row   The object created by newRow
+     * @param field Field name
+     * @param value Field value, false when the field is empty in Odoo
+     */
+    void setField(T row, String field, Object value);
+}
@@ -0,0 +1,35 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+
+import java.util.List;
+
+/**
+ * Client of one Odoo service (common or object), whatever the wire protocol
+ * Description: Implementations report errors the way the XML-RPC client does, so callers
+ * handle both protocols alike: faults returned by Odoo are XmlRpcException with the Odoo
+ * fault code, failures to reach Odoo are XmlRpcClientException
+ */
+public interface OdooRpcClient {
+    /**
+     * Call a method with the default configuration of the client
+     *
+     * @param method    Method name, e.g. authenticate or execute_kw
+     * @param params    Positional parameters
+     * @return result   Result of the call
+     */
+    Object execute(String method, List<Object> params) throws XmlRpcException;
+
+    /**
+     * Call a method with a per-call configuration
+     * Description: The configuration carries the reply timeout and, for an OdooRequestConfig,
+     * the row mapper the result is parsed into
+     *
+     * @param config    Configuration of the call
+     * @param method    Method name
+     * @param params    Positional parameters
+     * @return result   Result of the call
+     */
+    Object execute(XmlRpcClientConfigImpl config, String method, List<Object> params) throws XmlRpcException;
+}
@@ -0,0 +1,133 @@
+package com.gii.midapp.xmlrpc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.xmlrpc.XmlRpcException;
+
+import java.util.HashMap;
+
+import static java.util.Arrays.asList;
+
+@Slf4j
+public class OdooSession {
+    // Fault code Odoo's /xmlrpc/2 endpoints use for odoo.exceptions.AccessDenied
+    private static final int FAULT_CODE_ACCESS_DENIED = 3;
+
+    private final OdooRpcClient commonClient;
+    private final String db;
+    private final String username;
+    private final String password;
+    private final Object lock = new Object();
+    private volatile Login login; // Cached login, null until the first successful one
+    private long generation;      // Number of successful logins, guarded by lock
+
+    /**
+     * Constructor
+     *
+     * @param commonClient  Client for the common server
+     * @param db            Database name
+     * @param username      Username
+     * @param password      Password
+     */
+    public OdooSession(OdooRpcClient commonClient, String db, String username, String password) {
+        this.commonClient = commonClient;
+        this.db = db;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Get the uid of the logged in user
+     *
+     * @return uid  The uid of the user
+     */
+    public int getUid() throws XmlRpcException {
+        return getLogin().getUid();
+    }
+
+    /**
+     * Get the current login
+     * Description: Logs in on first use. Concurrent callers wait for the same login
+     * instead of each sending their own authenticate call
+     *
+     * @return Login    The login, to hand back to reauthenticate if Odoo rejects its uid
+     */
+    public Login getLogin() throws XmlRpcException {
+        Login current = login;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (login == null) {
+                login = authenticate();
+            }
+            return login;
+        }
+    }
+
+    /**
+     * Log in again after Odoo rejected the uid of a login
+     * Description: If another thread already logged in again since the caller got its login,
+     * that login is returned without another round trip. Logins are told apart by their
+     * generation, not their uid: Odoo hands out the same uid on every login of a user
+     *
+     * @param stale     The login whose uid was rejected
+     * @return Login    A fresh login
+     */
+    public Login reauthenticate(Login stale) throws XmlRpcException {
+        synchronized (lock) {
+            if (login != null && login.generation != stale.generation) {
+                return login;
+            }
+            login = null;
+            login = authenticate();
+            return login;
+        }
+    }
+
+    /**
+     * Check whether a fault means the session is no longer valid
+     *
+     * @param xe        The fault raised by execute_kw
+     * @return boolean  true if the call should be retried after logging in again
+     */
+    public static boolean isAccessDenied(XmlRpcException xe) {
+        if (xe.code == FAULT_CODE_ACCESS_DENIED) {
+            return true;
+        }
+        String message = xe.getMessage();
+        return message != null && (message.contains("AccessDenied") || message.contains("Access Denied"));
+    }
+
+    /**
+     * Authenticate to the Odoo server
+     * Description: Odoo answers false instead of a fault when the credentials are wrong,
+     * this is turned into an exception so a bad login is never cached as uid 0
+     *
+     * @return Login The login, of the next generation
+     */
+    private Login authenticate() throws XmlRpcException {
+        Object result = commonClient.execute("authenticate", asList(db, username, password, new HashMap<>()));
+        if (!(result instanceof Integer)) {
+            throw new XmlRpcException(FAULT_CODE_ACCESS_DENIED, "Authentication failed for user " + username);
+        }
+        log.debug("Logged in to Odoo database {} as {}", db, username);
+        return new Login((Integer) result, ++generation);
+    }
+
+    /**
+     * uid handed out by one successful login
+     */
+    public static final class Login {
+        private final int uid;
+        private final long generation;
+
+        private Login(int uid, long generation) {
+            this.uid = uid;
+            this.generation = generation;
+        }
+
+        public int getUid() {
+            return uid;
+        }
+    }
+}
@@ -0,0 +1,663 @@
+package com.gii.midapp.xmlrpc.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gii.midapp.xmlrpc.OdooConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.XmlRpcHandler;
+import org.apache.xmlrpc.XmlRpcRequest;
+import org.apache.xmlrpc.server.XmlRpcHandlerMapping;
+import org.apache.xmlrpc.server.XmlRpcNoSuchHandlerException;
+import org.apache.xmlrpc.server.XmlRpcServerConfigImpl;
+import org.apache.xmlrpc.webserver.WebServer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the Odoo XML-RPC API
+ * Description: Answers authenticate on /xmlrpc/2/common and execute_kw (search_read, search_count,
+ * create, write, name_get, unlink) on /xmlrpc/2/object, so OdooClientApi can be pointed at it with
+ * odoo.url=http://localhost:{port}. The same calls are answered on /jsonrpc on a second port, for
+ * odoo.transport.protocol=jsonrpc. It can be embedded with new OdooStubServer(port).start() or run
+ * inside the application with odoo.stub.enabled=true. Never enable it in production.
+ */
+@Component
+@ConditionalOnProperty(name = "odoo.stub.enabled", havingValue = "true")
+public class OdooStubServer implements InitializingBean, DisposableBean {
+    // Fault codes Odoo uses on /xmlrpc/2/object
+    private static final int FAULT_CODE_ACCESS_DENIED = 3;
+    private static final int FAULT_CODE_SERVER_ERROR = 2;
+    private static final int UID = 2;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final int port;
+    private final int jsonRpcPort;
+    private final Map<String, ConcurrentSkipListMap<Integer, Map<String, Object>>> models = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> sequences = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private volatile long latency;
+    private volatile long latencyJitter;
+    private volatile double failureRate;
+    private volatile String password; // null accepts any password
+    private int seedPartners;
+    private int seedLocations;
+    private int seedDivisions;
+    private WebServer webServer;
+    private HttpServer jsonRpcServer;
+    private ExecutorService jsonRpcExecutor;
+
+    /**
+     * Constructor for embedding the stub, e.g. in a load test
+     *
+     * @param port  Port of the XML-RPC endpoints, 0 picks a free one. /jsonrpc gets a free port
+     */
+    public OdooStubServer(int port) {
+        this.port = port;
+        this.jsonRpcPort = 0;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param port              Port of the XML-RPC endpoints
+     * @param jsonRpcPort       Port of the /jsonrpc endpoint
+     * @param latency           Delay added to every call in milliseconds
+     * @param latencyJitter     Random extra delay of up to this many milliseconds
+     * @param failureRate       Share of execute_kw calls (0 to 1) that answer with a server fault
+     * @param password          Password authenticate accepts, empty accepts any
+     * @param seedPartners      Partners generated on start
+     * @param seedLocations     Locations generated on start
+     * @param seedDivisions     Divisions generated on start, spread over the locations
+     */
+    @Autowired
+    public OdooStubServer(@Value("${odoo.stub.port:8069}") int port,
+                          @Value("${odoo.stub.jsonrpc-port:8070}") int jsonRpcPort,
+                          @Value("${odoo.stub.latency:0}") long latency,
+                          @Value("${odoo.stub.latency-jitter:0}") long latencyJitter,
+                          @Value("${odoo.stub.failure-rate:0}") double failureRate,
+                          @Value("${odoo.stub.password:}") String password,
+                          @Value("${odoo.stub.seed.partners:1000}") int seedPartners,
+                          @Value("${odoo.stub.seed.locations:100}") int seedLocations,
+                          @Value("${odoo.stub.seed.divisions:20}") int seedDivisions) {
+        this.port = port;
+        this.jsonRpcPort = jsonRpcPort;
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+        this.failureRate = failureRate;
+        this.password = password.isEmpty() ? null : password;
+        this.seedPartners = seedPartners;
+        this.seedLocations = seedLocations;
+        this.seedDivisions = seedDivisions;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        seed(seedPartners, seedLocations, seedDivisions);
+        start();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * Start listening
+     */
+    public synchronized void start() throws IOException {
+        webServer = new WebServer(port);
+        webServer.getXmlRpcServer().setHandlerMapping(new HandlerMapping());
+        // Keep connections open between calls like Odoo does, so pooled clients reuse them
+        ((XmlRpcServerConfigImpl) webServer.getXmlRpcServer().getConfig()).setKeepAliveEnabled(true);
+        webServer.start();
+
+        jsonRpcExecutor = Executors.newCachedThreadPool();
+        jsonRpcServer = HttpServer.create(new InetSocketAddress(jsonRpcPort), 0);
+        jsonRpcServer.createContext("/jsonrpc", this::handleJsonRpc);
+        jsonRpcServer.setExecutor(jsonRpcExecutor);
+        jsonRpcServer.start();
+    }
+
+    /**
+     * Stop listening, the dataset is kept
+     */
+    public synchronized void stop() {
+        if (webServer != null) {
+            webServer.shutdown();
+            webServer = null;
+        }
+        if (jsonRpcServer != null) {
+            jsonRpcServer.stop(0);
+            jsonRpcExecutor.shutdownNow();
+            jsonRpcServer = null;
+        }
+    }
+
+    /**
+     * Get the port the stub listens on
+     *
+     * @return port The bound port, useful when started on port 0
+     */
+    public int getPort() {
+        return webServer.getPort();
+    }
+
+    /**
+     * Get the port of the /jsonrpc endpoint
+     *
+     * @return port The bound port
+     */
+    public int getJsonRpcPort() {
+        return jsonRpcServer.getAddress().getPort();
+    }
+
+    public void setLatency(long latency, long latencyJitter) {
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Get how many times a method was called
+     *
+     * @param method    authenticate or an execute_kw method such as search_read
+     * @return count    Number of calls since start
+     */
+    public long getCallCount(String method) {
+        AtomicLong count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Insert a record directly into the dataset
+     * Description: create_date and write_date are filled in when missing
+     *
+     * @param model     Model name
+     * @param values    Field values
+     * @return id       Id of the new record
+     */
+    public int insert(String model, Map<String, Object> values) {
+        int id = sequences.computeIfAbsent(model, m -> new AtomicInteger()).incrementAndGet();
+        String now = now();
+        Map<String, Object> record = new HashMap<>(values);
+        record.put("id", id);
+        record.putIfAbsent("create_date", now);
+        record.putIfAbsent("write_date", now);
+        table(model).put(id, record);
+        return id;
+    }
+
+    /**
+     * Remove every record of every model
+     */
+    public void clear() {
+        models.clear();
+        sequences.clear();
+    }
+
+    /**
+     * Generate partners, divisions and locations that look like the real ones
+     *
+     * @param partners  Number of res.partner records
+     * @param locations Number of location records
+     * @param divisions Number of division records
+     */
+    public void seed(int partners, int locations, int divisions) {
+        for (int i = 1; i <= partners; i++) {
+            Map<String, Object> partner = new HashMap<>();
+            partner.put("name", "Partner " + i);
+            partner.put("phone", String.format("+62 21 %07d", i));
+            partner.put("mobile", i % 2 == 0);
+            partner.put("email", "partner" + i + "@example.com");
+            partner.put("website", "https://partner" + i + ".example.com");
+            insert("res.partner", partner);
+        }
+        List<Integer> divisionIds = new ArrayList<>(divisions);
+        for (int i = 1; i <= divisions; i++) {
+            Map<String, Object> division = new HashMap<>();
+            division.put("name", "Division " + i);
+            divisionIds.add(insert(OdooConfig.RES_DIVISION, division));
+        }
+        for (int i = 1; i <= locations; i++) {
+            Map<String, Object> location = new HashMap<>();
+            location.put("name", "Location " + i);
+            int companyId = i % 3 + 1;
+            location.put("company_id", new Object[]{companyId, "Company " + companyId});
+            List<Object> locationDivisions = new ArrayList<>();
+            for (int d = 0; d < Math.min(3, divisionIds.size()); d++) {
+                locationDivisions.add(divisionIds.get((i + d) % divisionIds.size()));
+            }
+            location.put("division_ids", locationDivisions.toArray());
+            insert(OdooConfig.RES_LOCATION, location);
+        }
+    }
+
+    private ConcurrentSkipListMap<Integer, Map<String, Object>> table(String model) {
+        return models.computeIfAbsent(model, m -> new ConcurrentSkipListMap<>());
+    }
+
+    private static String now() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        format.setTimeZone(TimeZone.getTimeZone("UTC")); // Odoo stores datetimes in UTC
+        return format.format(new Date());
+    }
+
+    /**
+     * Wait for the configured latency and inject a fault when the dice say so
+     *
+     * @param method    The called method, counted for getCallCount
+     * @param mayFail   Whether failure injection applies to this call
+     */
+    private void simulate(String method, boolean mayFail) throws XmlRpcException {
+        calls.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+        long delay = latency + (latencyJitter > 0 ? ThreadLocalRandom.current().nextLong(latencyJitter + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mayFail && failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new XmlRpcException(FAULT_CODE_SERVER_ERROR, "Injected failure in " + method);
+        }
+    }
+
+    /**
+     * Answer a call of either endpoint
+     *
+     * @param method    authenticate, execute_kw or version
+     * @param args      Positional arguments of the call
+     * @return result   The result, XmlRpcException for the faults Odoo would return
+     */
+    private Object call(String method, Object[] args) throws XmlRpcException {
+        switch (method) {
+            case "authenticate":
+                return authenticate(args);
+            case "execute_kw":
+                return executeKw(args);
+            case "version":
+                return Collections.singletonMap("server_version", "stub");
+            default:
+                throw new XmlRpcException(FAULT_CODE_SERVER_ERROR, "No such method: " + method);
+        }
+    }
+
+    /**
+     * Answer one JSON-RPC request {"jsonrpc", "method": "call", "params": {"service", "method", "args"}, "id"}
+     * Description: Faults are answered as Odoo's JSON-RPC errors, named after the exception Odoo
+     * raises for the XML-RPC fault code
+     */
+    private void handleJsonRpc(HttpExchange exchange) throws IOException {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jsonrpc", "2.0");
+        try (InputStream in = exchange.getRequestBody()) {
+            Map<String, Object> request = JSON.readValue(in, Map.class);
+            Map<String, Object> params = (Map<String, Object>) request.get("params");
+            response.put("id", request.get("id"));
+            try {
+                response.put("result", call((String) params.get("method"), (Object[]) fromJson(params.get("args"))));
+            } catch (XmlRpcException xe) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("name", xe.code == FAULT_CODE_ACCESS_DENIED ? "odoo.exceptions.AccessDenied" : "odoo.exceptions.UserError");
+                data.put("message", xe.getMessage());
+                data.put("debug", "");
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("code", 200);
+                error.put("message", "Odoo Server Error");
+                error.put("data", data);
+                response.put("error", error);
+            }
+        }
+        byte[] body = JSON.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Convert JSON arrays to Object[], the type the XML-RPC parser gives the handlers
+     */
+    private static Object fromJson(Object value) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            Object[] array = new Object[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = fromJson(list.get(i));
+            }
+            return array;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put((String) entry.getKey(), fromJson(entry.getValue()));
+            }
+            return map;
+        }
+        return value;
+    }
+
+    private Object authenticate(Object[] args) throws XmlRpcException {
+        simulate("authenticate", false);
+        String expected = password;
+        if (expected != null && !expected.equals(args[2])) {
+            return Boolean.FALSE; // What Odoo answers for bad credentials
+        }
+        return UID;
+    }
+
+    private Object executeKw(Object[] args) throws XmlRpcException {
+        String expected = password;
+        if (!Integer.valueOf(UID).equals(args[1]) || (expected != null && !expected.equals(args[2]))) {
+            throw new XmlRpcException(FAULT_CODE_ACCESS_DENIED, "AccessDenied");
+        }
+        String model = (String) args[3];
+        String method = (String) args[4];
+        Object[] params = args.length > 5 ? (Object[]) args[5] : new Object[0];
+        Map<String, Object> kwargs = args.length > 6 ? (Map<String, Object>) args[6] : Collections.emptyMap();
+        simulate(method, true);
+
+        switch (method) {
+            case "search_read":
+                return searchRead(model,
+                        param(params, kwargs, 0, "domain"),
+                        param(params, kwargs, 1, "fields"),
+                        param(params, kwargs, 2, "offset"),
+                        param(params, kwargs, 3, "limit"),
+                        param(params, kwargs, 4, "order"));
+            case "search_count":
+                return search(model, (Object[]) param(params, kwargs, 0, "domain")).size();
+            case "create":
+                return create(model, params[0]);
+            case "write":
+                return write(model, (Object[]) params[0], (Map<String, Object>) params[1]);
+            case "name_get":
+                return nameGet(model, (Object[]) params[0]);
+            case "unlink":
+                return unlink(model, (Object[]) params[0]);
+            default:
+                throw new XmlRpcException(FAULT_CODE_SERVER_ERROR, "The stub does not implement " + model + "." + method);
+        }
+    }
+
+    private static Object param(Object[] params, Map<String, Object> kwargs, int position, String name) {
+        if (position < params.length) {
+            return params[position];
+        }
+        return kwargs.get(name);
+    }
+
+    private Object[] searchRead(String model, Object domain, Object fields, Object offset, Object limit, Object order) {
+        List<Map<String, Object>> records = search(model, (Object[]) domain);
+        if (order instanceof String && !((String) order).isEmpty()) {
+            records.sort(comparator((String) order));
+        }
+        int from = offset instanceof Integer ? Math.min((Integer) offset, records.size()) : 0;
+        int to = limit instanceof Integer && (Integer) limit > 0 ? Math.min(from + (Integer) limit, records.size()) : records.size();
+
+        Object[] fieldNames = fields instanceof Object[] ? (Object[]) fields : new Object[0];
+        Object[] result = new Object[to - from];
+        for (int i = from; i < to; i++) {
+            Map<String, Object> record = records.get(i);
+            Map<String, Object> row;
+            if (fieldNames.length == 0) {
+                row = new HashMap<>(record);
+            } else {
+                row = new HashMap<>();
+                row.put("id", record.get("id"));
+                for (Object field : fieldNames) {
+                    Object value = record.get(field);
+                    row.put((String) field, value == null ? Boolean.FALSE : value); // Odoo sends false for empty fields
+                }
+            }
+            result[i - from] = row;
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> search(String model, Object[] domain) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> record : table(model).values()) {
+            if (matches(record, domain == null ? new Object[0] : domain)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    private Object create(String model, Object values) {
+        if (values instanceof Object[]) {
+            Object[] list = (Object[]) values;
+            Object[] ids = new Object[list.length];
+            for (int i = 0; i < list.length; i++) {
+                ids[i] = insert(model, (Map<String, Object>) list[i]);
+            }
+            return ids;
+        }
+        return insert(model, (Map<String, Object>) values);
+    }
+
+    private Object write(String model, Object[] ids, Map<String, Object> values) {
+        ConcurrentSkipListMap<Integer, Map<String, Object>> table = table(model);
+        String now = now();
+        for (Object id : ids) {
+            // Replace the row instead of mutating it so concurrent readers never see half a write
+            table.computeIfPresent((Integer) id, (key, record) -> {
+                Map<String, Object> updated = new HashMap<>(record);
+                updated.putAll(values);
+                updated.put("write_date", now);
+                return updated;
+            });
+        }
+        return Boolean.TRUE;
+    }
+
+    private Object nameGet(String model, Object[] ids) {
+        ConcurrentSkipListMap<Integer, Map<String, Object>> table = table(model);
+        List<Object> result = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            Map<String, Object> record = table.get((Integer) id);
+            if (record != null) {
+                result.add(new Object[]{id, record.get("name")});
+            }
+        }
+        return result.toArray();
+    }
+
+    private Object unlink(String model, Object[] ids) {
+        ConcurrentSkipListMap<Integer, Map<String, Object>> table = table(model);
+        for (Object id : ids) {
+            table.remove((Integer) id);
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Evaluate an Odoo domain in prefix notation against a record
+     * Description: Terms are read from the end, '&' and '|' combine the two results on top of
+     * the stack and '!' negates one, whatever is left is implicitly and-ed like Odoo does
+     *
+     * @param record    The record
+     * @param domain    The domain, e.g. ['|', ['name', 'ilike', 'a'], ['id', '>', 10]]
+     * @return boolean  true if the record matches
+     */
+    private static boolean matches(Map<String, Object> record, Object[] domain) {
+        LinkedList<Boolean> stack = new LinkedList<>();
+        for (int i = domain.length - 1; i >= 0; i--) {
+            Object term = domain[i];
+            if ("&".equals(term)) {
+                boolean left = stack.pop();
+                boolean right = stack.pop();
+                stack.push(left && right);
+            } else if ("|".equals(term)) {
+                boolean left = stack.pop();
+                boolean right = stack.pop();
+                stack.push(left || right);
+            } else if ("!".equals(term)) {
+                stack.push(!stack.pop());
+            } else {
+                Object[] leaf = (Object[]) term;
+                stack.push(matchesLeaf(record.get(leaf[0]), (String) leaf[1], leaf[2]));
+            }
+        }
+        for (Boolean result : stack) {
+            if (!result) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesLeaf(Object value, String operator, Object operand) {
+        switch (operator) {
+            case "=":
+                return compare(value, operand) == 0;
+            case "!=":
+                return compare(value, operand) != 0;
+            case ">":
+                return compare(value, operand) > 0;
+            case ">=":
+                return compare(value, operand) >= 0;
+            case "<":
+                return compare(value, operand) < 0;
+            case "<=":
+                return compare(value, operand) <= 0;
+            case "like":
+                return value instanceof String && ((String) value).contains(String.valueOf(operand));
+            case "ilike":
+                return value instanceof String
+                        && ((String) value).toLowerCase().contains(String.valueOf(operand).toLowerCase());
+            case "not ilike":
+                return !(value instanceof String
+                        && ((String) value).toLowerCase().contains(String.valueOf(operand).toLowerCase()));
+            case "in":
+                return intersects(value, (Object[]) operand);
+            case "not in":
+                return !intersects(value, (Object[]) operand);
+            default:
+                throw new IllegalArgumentException("The stub does not implement the domain operator " + operator);
+        }
+    }
+
+    private static boolean intersects(Object value, Object[] operand) {
+        // x2many fields hold several ids, the record matches if any of them is in the operand
+        Object[] values = value instanceof Object[] ? (Object[]) value : new Object[]{value};
+        for (Object v : values) {
+            for (Object o : operand) {
+                if (compare(v, o) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare a field value with a domain operand the way Odoo's SQL would
+     * Description: many2one values ([id, name]) compare by id, false sorts before anything else
+     */
+    private static int compare(Object value, Object operand) {
+        if (value instanceof Object[] && ((Object[]) value).length == 2) {
+            value = ((Object[]) value)[0];
+        }
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return operand == null || Boolean.FALSE.equals(operand) ? 0 : -1;
+        }
+        if (operand == null || Boolean.FALSE.equals(operand)) {
+            return 1;
+        }
+        if (value instanceof Number && operand instanceof Number) {
+            return Long.compare(((Number) value).longValue(), ((Number) operand).longValue());
+        }
+        return String.valueOf(value).compareTo(String.valueOf(operand));
+    }
+
+    /**
+     * Build a comparator from an Odoo order clause
+     *
+     * @param order         e.g. "name asc, id desc"
+     * @return Comparator   Comparator over records
+     */
+    private static Comparator<Map<String, Object>> comparator(String order) {
+        Comparator<Map<String, Object>> result = null;
+        for (String clause : order.split(",")) {
+            String[] parts = clause.trim().split("\\s+");
+            String field = parts[0];
+            boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1]);
+            Comparator<Map<String, Object>> next = (a, b) -> compare(a.get(field), b.get(field));
+            if (desc) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+
+    /**
+     * Routes both endpoints to the stub: the method names of /xmlrpc/2/common and /xmlrpc/2/object
+     * don't overlap, so the request path doesn't need to be looked at
+     */
+    private class HandlerMapping implements XmlRpcHandlerMapping {
+        private final Map<String, XmlRpcHandler> handlers = new HashMap<>();
+
+        HandlerMapping() {
+            for (String method : new String[]{"authenticate", "execute_kw", "version"}) {
+                handlers.put(method, request -> call(method, arguments(request)));
+            }
+        }
+
+        @Override
+        public XmlRpcHandler getHandler(String handlerName) throws XmlRpcNoSuchHandlerException {
+            XmlRpcHandler handler = handlers.get(handlerName);
+            if (handler == null) {
+                throw new XmlRpcNoSuchHandlerException("No such method: " + handlerName);
+            }
+            return handler;
+        }
+
+        private Object[] arguments(XmlRpcRequest request) {
+            Object[] args = new Object[request.getParameterCount()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = request.getParameter(i);
+            }
+            return args;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.exception.OdooException;
+import com.gii.midapp.exception.OdooUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class OdooTaskExecutor implements DisposableBean {
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final long callTimeoutMillis;
+    private final AtomicInteger queued = new AtomicInteger(); // Submitted but not started yet
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Constructor
+     * Description: XML-RPC calls block on I/O, so they never run on the common ForkJoinPool.
+     * Virtual threads are used when the JDK has them and they are enabled, otherwise a bounded
+     * pool of platform threads. Either way the number of calls actually sent to Odoo is capped
+     * by the bulkhead in OdooClientApi
+     *
+     * @param useVirtualThreads     Use virtual threads when the JDK supports them
+     * @param threads               Max platform threads when virtual threads are not used
+     * @param queueCapacity         Max tasks waiting for a platform thread, the caller runs the task beyond that
+     * @param callTimeoutMillis     Max time in milliseconds await() waits for a task, the task itself
+     *                              runs until the reply timeout of its call
+     * @param metrics               Registers the queue depth and running task gauges
+     */
+    @Autowired
+    public OdooTaskExecutor(@Value("${odoo.executor.virtual-threads:true}") boolean useVirtualThreads,
+                            @Value("${odoo.executor.threads:16}") int threads,
+                            @Value("${odoo.executor.queue-capacity:100}") int queueCapacity,
+                            @Value("${odoo.executor.call-timeout:30000}") long callTimeoutMillis,
+                            OdooMetrics metrics) {
+        ExecutorService virtualExecutor = useVirtualThreads ? createVirtualThreadExecutor() : null;
+        this.virtualThreads = virtualExecutor != null;
+        this.executor = virtualThreads ? virtualExecutor : createPlatformThreadExecutor(threads, queueCapacity);
+        this.callTimeoutMillis = callTimeoutMillis;
+        metrics.gauge("odoo.executor.queue_depth", "Odoo tasks waiting to start", queued, AtomicInteger::get);
+        metrics.gauge("odoo.executor.running", "Odoo tasks running", running, AtomicInteger::get);
+    }
+
+    /**
+     * Run a task asynchronously
+     *
+     * @param task      The task, typically one OdooClientApi call, made with the priority of the caller
+     * @return Future   Future of the task, cancelling it interrupts the task
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        OdooCallPriority priority = OdooCallPriority.current(); // The task calls Odoo on behalf of the submitter
+        queued.incrementAndGet();
+        return executor.submit(() -> {
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            OdooCallPriority previous = OdooCallPriority.enter(priority);
+            try {
+                return task.call();
+            } finally {
+                OdooCallPriority.enter(previous);
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Wait for a task within the call timeout
+     * Description: If the timeout expires or the waiting thread is interrupted, the caller gets
+     * its answer at once and the task is cancelled. Cancelling only interrupts the task: a platform
+     * thread blocked reading the socket is not woken by it, so the worker, its pooled connection and
+     * its bulkhead slot stay busy until the call's own reply timeout (odoo.timeout.read /
+     * odoo.timeout.write, bounded by odoo.http.read-timeout). That timeout, not this one, bounds the
+     * work an abandoned call keeps holding
+     *
+     * @param future    Future returned by submit
+     * @return result   Result of the task
+     */
+    public <T> T await(Future<T> future) {
+        try {
+            return future.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OdooUnavailableException("Interrupted while waiting for Odoo", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new OdooUnavailableException("No answer from Odoo after " + callTimeoutMillis + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OdooException("Error while calling Odoo", e.getCause());
+        }
+    }
+
+    /**
+     * @return int  Number of tasks waiting to start
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return int  Number of tasks running
+     */
+    public int getRunningTasks() {
+        return running.get();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            // Looked up by reflection so the code still runs on JDKs without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformThreadExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "odoo-io-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,98 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.xmlrpc.stub.OdooStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Builds the Odoo client outside of Spring, pointed at an OdooStubServer
+ * Description: Shared by the load tests and benchmarks, with the defaults of application.properties
+ */
+public final class OdooTestSupport {
+    public static final String DB = "stub";
+    public static final String USERNAME = "admin";
+    public static final String PASSWORD = "admin";
+
+    private OdooTestSupport() {
+    }
+
+    /**
+     * The application on a random port with OdooStubServer as its Odoo
+     * Description: The stub is seeded with 1000 partners and answers after 5 to 10 ms. Every test
+     * class carrying it shares one application context
+     */
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Documented
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "odoo.stub.enabled=true",
+            "odoo.stub.port=18069",
+            "odoo.stub.latency=5",
+            "odoo.stub.latency-jitter=5",
+            "odoo.datasource.url=http://localhost:18069",
+            "odoo.datasource.db=" + DB,
+            "odoo.datasource.username=" + USERNAME,
+            "odoo.datasource.password=" + PASSWORD
+    })
+    public @interface StubApplicationTest {
+    }
+
+    public static OdooMetrics metrics() {
+        return new OdooMetrics(new SimpleMeterRegistry());
+    }
+
+    public static OdooResilienceConfig resilience() {
+        OdooResilienceConfig resilience = new OdooResilienceConfig();
+        ReflectionTestUtils.setField(resilience, "readTimeout", 10000);
+        ReflectionTestUtils.setField(resilience, "writeTimeout", 30000);
+        ReflectionTestUtils.setField(resilience, "failureThreshold", 5);
+        ReflectionTestUtils.setField(resilience, "openDuration", 30000L);
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 3);
+        ReflectionTestUtils.setField(resilience, "backoff", 100L);
+        ReflectionTestUtils.setField(resilience, "hedgeDelay", 0L);
+        return resilience;
+    }
+
+    public static OdooHttpTransport transport(String protocol, int maxConnections, OdooMetrics metrics) {
+        return new OdooHttpTransport(maxConnections, maxConnections, 5000, 30000, 60000L, false, metrics, protocol);
+    }
+
+    public static OdooTaskExecutor taskExecutor(OdooMetrics metrics) {
+        return new OdooTaskExecutor(false, 8, 1000, 30000L, metrics);
+    }
+
+    /**
+     * Create a client of the stub with a fixed concurrency limit
+     *
+     * @param stub          Started stub server
+     * @param transport     Pooled transport, closed by the caller
+     * @param taskExecutor  Executor of hedged calls, closed by the caller
+     * @param metrics       Meters of the calls
+     * @param maxCalls      Max concurrent calls
+     * @return client       The client
+     */
+    public static OdooClientApi client(OdooStubServer stub, OdooHttpTransport transport, OdooTaskExecutor taskExecutor,
+                                       OdooMetrics metrics, int maxCalls) {
+        return client(url(stub), transport, taskExecutor, metrics, maxCalls);
+    }
+
+    /**
+     * Create a client of the stub at a given URL, e.g. its JSON-RPC port
+     */
+    public static OdooClientApi client(String url, OdooHttpTransport transport, OdooTaskExecutor taskExecutor,
+                                       OdooMetrics metrics, int maxCalls) {
+        return new OdooClientApi(url, DB, USERNAME, PASSWORD, transport, event -> { },
+                maxCalls, 5000L, 2, false, 1.0, 2.0, resilience(), taskExecutor, metrics, true);
+    }
+
+    public static String url(OdooStubServer stub) {
+        return "http://localhost:" + stub.getPort();
+    }
+}
@@ -0,0 +1,83 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.common.TypeFactoryImpl;
+import org.apache.xmlrpc.common.XmlRpcController;
+import org.apache.xmlrpc.common.XmlRpcStreamConfig;
+import org.apache.xmlrpc.serializer.TypeSerializer;
+import org.apache.xmlrpc.serializer.TypeSerializerImpl;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+public class OdooTypeFactory extends TypeFactoryImpl {
+    private static final TypeSerializer BINARY_SERIALIZER = new BinaryValueSerializer();
+
+    public OdooTypeFactory(XmlRpcController controller) {
+        super(controller);
+    }
+
+    @Override
+    public TypeSerializer getSerializer(XmlRpcStreamConfig config, Object object) throws SAXException {
+        if (object instanceof OdooBinaryValue) {
+            return BINARY_SERIALIZER;
+        }
+        return super.getSerializer(config, object);
+    }
+
+    /**
+     * Writes an OdooBinaryValue as a base64 string value
+     * Description: The source is read in chunks of a multiple of 3 bytes so every chunk
+     * encodes to base64 without padding, and each chunk is handed to the XML writer
+     * as soon as it is encoded
+     */
+    private static class BinaryValueSerializer extends TypeSerializerImpl {
+        private static final int CHUNK_SIZE = 3 * 4096;
+
+        @Override
+        public void write(ContentHandler handler, Object object) throws SAXException {
+            Base64.Encoder encoder = Base64.getEncoder();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            byte[] encoded = new byte[CHUNK_SIZE / 3 * 4];
+            char[] chars = new char[encoded.length];
+
+            handler.startElement("", VALUE_TAG, VALUE_TAG, ZERO_ATTRIBUTES);
+            try (InputStream in = ((OdooBinaryValue) object).getSource().getInputStream()) {
+                int length;
+                while ((length = fill(in, chunk)) > 0) {
+                    byte[] src = length == chunk.length ? chunk : Arrays.copyOf(chunk, length);
+                    int encodedLength = encoder.encode(src, encoded);
+                    for (int i = 0; i < encodedLength; i++) {
+                        chars[i] = (char) encoded[i];
+                    }
+                    handler.characters(chars, 0, encodedLength);
+                }
+            } catch (IOException e) {
+                throw new SAXException("Error while reading binary value", e);
+            }
+            handler.endElement("", VALUE_TAG, VALUE_TAG);
+        }
+
+        /**
+         * Read until the buffer is full or the stream ends
+         *
+         * @param in        Source stream
+         * @param buffer    Buffer to fill
+         * @return int      Number of bytes read, 0 at the end of the stream
+         */
+        private static int fill(InputStream in, byte[] buffer) throws IOException {
+            int length = 0;
+            while (length < buffer.length) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            return length;
+        }
+    }
+}
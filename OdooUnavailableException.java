@@ -0,0 +1,14 @@
+package com.gii.midapp.exception;
+
+/**
+ * Odoo could not be reached in time: I/O error, timeout, open circuit breaker or saturated bulkhead
+ */
+public class OdooUnavailableException extends OdooException {
+    public OdooUnavailableException(String message) {
+        super(message);
+    }
+
+    public OdooUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
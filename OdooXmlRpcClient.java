@@ -0,0 +1,28 @@
+package com.gii.midapp.xmlrpc;
+
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+
+import java.util.List;
+
+/**
+ * OdooRpcClient over /xmlrpc/2/common and /xmlrpc/2/object
+ */
+public class OdooXmlRpcClient implements OdooRpcClient {
+    private final XmlRpcClient client;
+
+    public OdooXmlRpcClient(XmlRpcClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Object execute(String method, List<Object> params) throws XmlRpcException {
+        return client.execute(method, params);
+    }
+
+    @Override
+    public Object execute(XmlRpcClientConfigImpl config, String method, List<Object> params) throws XmlRpcException {
+        return client.execute(config, method, params);
+    }
+}
@@ -0,0 +1,110 @@
+package com.gii.midapp.xmlrpc;
+
+import com.gii.midapp.model.response.PartnerResponse;
+import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
+import org.apache.xmlrpc.client.XmlRpcClientRequestImpl;
+import org.apache.xmlrpc.common.TypeFactory;
+import org.apache.xmlrpc.parser.XmlRpcResponseParser;
+import org.apache.xmlrpc.serializer.DefaultXMLWriterFactory;
+import org.apache.xmlrpc.serializer.XmlRpcWriter;
+import org.apache.xmlrpc.util.SAXParsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * XML-RPC encoding and decoding of payloads the size of real partner reads and batch writes
+ * Description: writeCreateRequest encodes a create of every record, as createBatch sends it.
+ * parseGeneric decodes a search_read response through the type factory of Apache XML-RPC,
+ * parseStreaming through OdooResponseParser into PartnerResponse, the two read paths of
+ * OdooClientApi. Run with the GC profiler (see main)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OdooXmlRpcSerializationBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    private int records;
+
+    private XmlRpcClientConfigImpl config;
+    private TypeFactory typeFactory;
+    private List<Object> createParams;
+    private byte[] searchReadResponse;
+    private final OdooResponseParser responseParser = new OdooResponseParser();
+
+    @Setup
+    public void setUp() throws Exception {
+        config = new XmlRpcClientConfigImpl();
+        typeFactory = new OdooTypeFactory(new XmlRpcClient());
+        List<Object> partners = OdooBenchmarkRecords.partners(records);
+        List<Object> values = new ArrayList<>(partners.size());
+        for (Object partner : partners) {
+            Map<String, Object> row = (Map<String, Object>) partner;
+            row.remove("id");
+            row.remove("write_date");
+            values.add(row);
+        }
+        createParams = asList("db", 2, "password", "res.partner", "create", asList(values));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlRpcWriter(config, new DefaultXMLWriterFactory().getXmlWriter(config, out), typeFactory)
+                .write(config, OdooBenchmarkRecords.partners(records).toArray());
+        searchReadResponse = out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeCreateRequest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlRpcWriter(config, new DefaultXMLWriterFactory().getXmlWriter(config, out), typeFactory)
+                .write(new XmlRpcClientRequestImpl(config, "execute_kw", createParams));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object parseGeneric() throws Exception {
+        XmlRpcResponseParser parser = new XmlRpcResponseParser(config, typeFactory);
+        XMLReader reader = SAXParsers.newXMLReader();
+        reader.setContentHandler(parser);
+        reader.parse(new InputSource(new ByteArrayInputStream(searchReadResponse)));
+        return PartnerResponse.fromOdooResponse(asList((Object[]) parser.getResult()));
+    }
+
+    @Benchmark
+    public List<PartnerResponse> parseStreaming() throws Exception {
+        return responseParser.parse(new ByteArrayInputStream(searchReadResponse), PartnerResponse.ODOO_ROW_MAPPER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OdooXmlRpcSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
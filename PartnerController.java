@@ -1,114 +1,211 @@
-package com.gii.midapp.controller;
-
-import com.gii.midapp.base.BaseResponse;
-import com.gii.midapp.exception.ValidationException;
-import com.gii.midapp.model.request.partner.CreatePartnerRequest;
-import com.gii.midapp.model.request.partner.UpdatePartnerRequest;
-import com.gii.midapp.model.response.PartnerResponse;
-import com.gii.midapp.service.PartnerService;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.util.List;
-
-@RestController
-@RequestMapping("/partner")
-public class PartnerController {
-    @Autowired
-    PartnerService partnerService;
-
-    /**
-     * Search partner by name
-     *
-     * @param name
-     * @return List of partner
-     */
-    @GetMapping("/search")
-    public ResponseEntity<BaseResponse> searchPartner(@RequestParam("name") String name) {
-        BaseResponse resp = new BaseResponse();
-        List<PartnerResponse> searchResults = partnerService.searchPartner(name);
-        if (searchResults.isEmpty()) {
-            resp.setMessage("Data tidak ditemukan");
-            return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
-        }
-        resp.setMessage("Data ditemukan");
-        resp.setData(searchResults);
-        return new ResponseEntity<>(resp, HttpStatus.OK);
-    }
-
-    /**
-     * Create partner
-     *
-     * @param file          File to be uploaded
-     * @param request       Partner input data
-     * @return BaseResponse Partner created id
-     */
-    @PostMapping("/")
-    public ResponseEntity<BaseResponse> createPartner(@RequestParam("file") MultipartFile file, @ModelAttribute CreatePartnerRequest request) {
-        BaseResponse resp = new BaseResponse();
-        try {
-            Integer partnerId = partnerService.createPartner(request, file);
-            resp.setMessage("Data berhasil dibuat");
-            resp.setData(partnerId);
-            return new ResponseEntity<>(resp, HttpStatus.OK);
-        } catch (ValidationException ve) {
-            resp.setMessage(ve.getMessage());
-            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
-        } catch (Exception e) {
-            e.printStackTrace();
-            resp.setMessage("Data gagal dibuat");
-            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-
-    /**
-     * Update partner
-     *
-     * @param file          File to be uploaded
-     * @param request       Partner input data
-     * @return BaseResponse Partner updated data
-     */
-    @PutMapping("/")
-    public ResponseEntity<BaseResponse> updatePartner(@RequestParam(value = "file", required = false) MultipartFile file,
-                                                      @ModelAttribute UpdatePartnerRequest request) {
-        BaseResponse resp = new BaseResponse();
-        try {
-            PartnerResponse partner = partnerService.updatePartner(request, file);
-            resp.setMessage("Data berhasil diupdate");
-            resp.setData(partner);
-            return new ResponseEntity<>(resp, HttpStatus.OK);
-        } catch (ValidationException ve) {
-            resp.setMessage(ve.getMessage());
-            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
-        } catch (Exception e) {
-            e.printStackTrace();
-            resp.setMessage("Data gagal diupdate");
-            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-
-    /**
-     * Delete partner
-     *
-     * @param request       Partner input data
-     * @return BaseResponse Partner deleted message
-     */
-    @DeleteMapping("/")
-    public ResponseEntity<BaseResponse> deletePartner(@ModelAttribute UpdatePartnerRequest request) {
-        BaseResponse resp = new BaseResponse();
-        try {
-            String message = partnerService.deletePartner(request.getId());
-            resp.setMessage(message);
-            return new ResponseEntity<>(resp, HttpStatus.OK);
-        } catch (ValidationException ve) {
-            resp.setMessage(ve.getMessage());
-            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
-        } catch (Exception e) {
-            resp.setMessage("Data gagal dihapus");
-            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-}
+package com.gii.midapp.controller;
+
+import com.gii.midapp.base.BaseResponse;
+import com.gii.midapp.exception.ValidationException;
+import com.gii.midapp.model.request.partner.CreatePartnerRequest;
+import com.gii.midapp.model.request.partner.UpdatePartnerRequest;
+import com.gii.midapp.model.response.BulkItemResponse;
+import com.gii.midapp.model.response.PartnerJobResponse;
+import com.gii.midapp.model.response.PartnerResponse;
+import com.gii.midapp.service.PartnerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+@RestController
+@RequestMapping("/partner")
+public class PartnerController {
+    @Autowired
+    PartnerService partnerService;
+    @Autowired
+    ConditionalGetSupport conditionalGetSupport;
+
+    /**
+     * Search partner by name
+     * Description: Answers 304 when If-None-Match or If-Modified-Since still match the results
+     *
+     * @param name
+     * @return List of partner
+     */
+    @GetMapping("/search")
+    public ResponseEntity<BaseResponse> searchPartner(@RequestParam("name") String name, HttpServletRequest request) {
+        return conditionalGetSupport.get(request, Collections.singletonList("res.partner"), partnerService::getSearchVersion,
+                () -> partnerService.searchPartner(name), PartnerResponse::getId, PartnerResponse::getUpdatedAt,
+                searchResults -> {
+                    BaseResponse resp = new BaseResponse();
+                    if (searchResults.isEmpty()) {
+                        resp.setMessage("Data tidak ditemukan");
+                        return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
+                    }
+                    resp.setMessage("Data ditemukan");
+                    resp.setData(searchResults);
+                    return new ResponseEntity<>(resp, HttpStatus.OK);
+                });
+    }
+
+    /**
+     * Create partner
+     *
+     * @param file          File to be uploaded
+     * @param request       Partner input data
+     * @param async         Queue the creation and answer 202 with a job id, when the queue is enabled
+     * @return BaseResponse Partner created id
+     */
+    @PostMapping("/")
+    public ResponseEntity<BaseResponse> createPartner(@RequestParam("file") MultipartFile file, @ModelAttribute CreatePartnerRequest request,
+                                                      @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        BaseResponse resp = new BaseResponse();
+        try {
+            if (async && partnerService.isAsyncEnabled()) {
+                return acceptedResponse(partnerService.submitCreatePartner(request, file));
+            }
+            Integer partnerId = partnerService.createPartner(request, file);
+            resp.setMessage("Data berhasil dibuat");
+            resp.setData(partnerId);
+            return new ResponseEntity<>(resp, HttpStatus.OK);
+        } catch (ValidationException ve) {
+            resp.setMessage(ve.getMessage());
+            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            e.printStackTrace();
+            resp.setMessage("Data gagal dibuat");
+            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Update partner
+     *
+     * @param file          File to be uploaded
+     * @param request       Partner input data
+     * @param async         Queue the update and answer 202 with a job id, when the queue is enabled
+     * @return BaseResponse Partner updated data
+     */
+    @PutMapping("/")
+    public ResponseEntity<BaseResponse> updatePartner(@RequestParam(value = "file", required = false) MultipartFile file,
+                                                      @ModelAttribute UpdatePartnerRequest request,
+                                                      @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        BaseResponse resp = new BaseResponse();
+        try {
+            if (async && partnerService.isAsyncEnabled()) {
+                return acceptedResponse(partnerService.submitUpdatePartner(request, file));
+            }
+            PartnerResponse partner = partnerService.updatePartner(request, file);
+            resp.setMessage("Data berhasil diupdate");
+            resp.setData(partner);
+            return new ResponseEntity<>(resp, HttpStatus.OK);
+        } catch (ValidationException ve) {
+            resp.setMessage(ve.getMessage());
+            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            e.printStackTrace();
+            resp.setMessage("Data gagal diupdate");
+            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Get the status of a queued create or update
+     *
+     * @param jobId         Job id returned with the 202 response
+     * @return BaseResponse Status of the job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BaseResponse> getPartnerJob(@PathVariable("jobId") String jobId) {
+        BaseResponse resp = new BaseResponse();
+        PartnerJobResponse job = partnerService.getPartnerJob(jobId);
+        if (job == null) {
+            resp.setMessage("Data tidak ditemukan");
+            return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
+        }
+        resp.setMessage("Data ditemukan");
+        resp.setData(job);
+        return new ResponseEntity<>(resp, HttpStatus.OK);
+    }
+
+    /**
+     * Delete partner
+     *
+     * @param request       Partner input data
+     * @return BaseResponse Partner deleted message
+     */
+    @DeleteMapping("/")
+    public ResponseEntity<BaseResponse> deletePartner(@ModelAttribute UpdatePartnerRequest request) {
+        BaseResponse resp = new BaseResponse();
+        try {
+            String message = partnerService.deletePartner(request.getId());
+            resp.setMessage(message);
+            return new ResponseEntity<>(resp, HttpStatus.OK);
+        } catch (ValidationException ve) {
+            resp.setMessage(ve.getMessage());
+            return new ResponseEntity<>(resp, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            resp.setMessage("Data gagal dihapus");
+            return new ResponseEntity<>(resp, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Create partners in bulk
+     *
+     * @param requests      Partner input data
+     * @param chunkSize     Records per Odoo call (optional), between 1 and odoo.partner.bulk-chunk-size
+     * @return BaseResponse Result of each record
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BaseResponse> createPartners(@RequestBody List<CreatePartnerRequest> requests,
+                                                       @RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        return bulkResponse(partnerService.createPartners(requests, chunkSize));
+    }
+
+    /**
+     * Update partners in bulk
+     *
+     * @param requests      Partner input data
+     * @param chunkSize     Records per Odoo call (optional), between 1 and odoo.partner.bulk-chunk-size
+     * @return BaseResponse Result of each record
+     */
+    @PutMapping("/bulk")
+    public ResponseEntity<BaseResponse> updatePartners(@RequestBody List<UpdatePartnerRequest> requests,
+                                                       @RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        return bulkResponse(partnerService.updatePartners(requests, chunkSize));
+    }
+
+    /**
+     * Delete partners in bulk
+     *
+     * @param ids           Partner ids
+     * @param chunkSize     Records per Odoo call (optional), between 1 and odoo.partner.bulk-chunk-size
+     * @return BaseResponse Result of each record
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<BaseResponse> deletePartners(@RequestBody List<Long> ids,
+                                                       @RequestParam(value = "chunkSize", required = false) Integer chunkSize) {
+        return bulkResponse(partnerService.deletePartners(ids, chunkSize));
+    }
+
+    private ResponseEntity<BaseResponse> acceptedResponse(String jobId) {
+        BaseResponse resp = new BaseResponse();
+        resp.setMessage("Data diterima dan sedang diproses");
+        resp.setData(jobId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/partner/jobs/" + jobId));
+        return new ResponseEntity<>(resp, headers, HttpStatus.ACCEPTED);
+    }
+
+    private ResponseEntity<BaseResponse> bulkResponse(List<BulkItemResponse> results) {
+        BaseResponse resp = new BaseResponse();
+        boolean allSucceeded = results.stream().allMatch(BulkItemResponse::getSuccess);
+        resp.setMessage(allSucceeded ? "Data berhasil diproses" : "Sebagian data gagal diproses");
+        resp.setData(results);
+        return new ResponseEntity<>(resp, allSucceeded ? HttpStatus.OK : HttpStatus.MULTI_STATUS);
+    }
+}
@@ -0,0 +1,106 @@
+package com.gii.midapp.controller;
+
+import com.gii.midapp.xmlrpc.OdooLoadRunner;
+import com.gii.midapp.xmlrpc.OdooTestSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test of the /partner endpoints against the stub server
+ * Description: The application runs against the stub (see OdooTestSupport.StubApplicationTest).
+ * Each endpoint is called from OdooLoadRunner.THREADS threads after a warmup, throughput and
+ * latency percentiles are printed.
+ * Run with: mvn test -Dgroups=load
+ */
+@Tag("load")
+@OdooTestSupport.StubApplicationTest
+class PartnerControllerLoadTest {
+    private static final byte[] IMAGE = image(800, 600); // PartnerImageProcessor rejects what ImageIO can't read
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void searchPartner() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("GET /partner/search", () ->
+                expectOk(restTemplate.getForEntity("/partner/search?name={name}", String.class,
+                        "Partner " + ThreadLocalRandom.current().nextInt(1, 1001)))));
+    }
+
+    @Test
+    void createPartner() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("POST /partner/", () ->
+                expectOk(restTemplate.postForEntity("/partner/", multipart(null), String.class))));
+    }
+
+    @Test
+    void updatePartner() throws Exception {
+        OdooLoadRunner.report(OdooLoadRunner.run("PUT /partner/", () ->
+                expectOk(restTemplate.exchange("/partner/", HttpMethod.PUT,
+                        multipart((long) ThreadLocalRandom.current().nextInt(1, 1001)), String.class))));
+    }
+
+    private static HttpEntity<MultiValueMap<String, Object>> multipart(Long id) {
+        int n = ThreadLocalRandom.current().nextInt(1_000_000);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        if (id != null) {
+            body.add("id", id);
+        }
+        body.add("name", "Load Partner " + n);
+        body.add("email", "load" + n + "@example.com");
+        body.add("phone", "+62 21 " + n);
+        body.add("mobile", n % 2 == 0);
+        body.add("website", "https://load" + n + ".example.com");
+        body.add("file", new ByteArrayResource(IMAGE) {
+            @Override
+            public String getFilename() {
+                return "partner.png";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(body, headers);
+    }
+
+    /**
+     * Encode an opaque gradient as PNG, big enough for the processor to re-encode it
+     */
+    private static byte[] image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | (x + y) % 256);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void expectOk(ResponseEntity<String> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("HTTP " + response.getStatusCode() + ": " + response.getBody());
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.gii.midapp.service;
+
+import com.gii.midapp.exception.ValidationException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.concurrent.*;
+
+@Component
+public class PartnerImageProcessor implements DisposableBean {
+    private final int maxSize;
+    private final long maxPixels;
+    private final float jpegQuality;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize       Max width and height in pixels, Odoo's largest variant is 1920
+     * @param maxPixels     Max width times height of an upload, larger ones are rejected before decoding
+     * @param jpegQuality   JPEG quality between 0 and 1
+     * @param threads       Max images processed at the same time
+     * @param queueCapacity Max images waiting for a worker
+     * @param timeoutMillis Max time in milliseconds to wait for an image
+     */
+    @Autowired
+    public PartnerImageProcessor(@Value("${odoo.image.max-size:1920}") int maxSize,
+                                 @Value("${odoo.image.max-pixels:40000000}") long maxPixels,
+                                 @Value("${odoo.image.jpeg-quality:0.85}") float jpegQuality,
+                                 @Value("${odoo.image.threads:2}") int threads,
+                                 @Value("${odoo.image.queue-capacity:32}") int queueCapacity,
+                                 @Value("${odoo.image.timeout:10000}") long timeoutMillis) {
+        this.maxSize = maxSize;
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Downscale and re-encode a partner image before it is sent to Odoo
+     * Description: Images larger than maxSize are scaled down, opaque images are re-encoded
+     * as JPEG and images with transparency as PNG. The original is kept when it is already
+     * small enough and re-encoding would not make it smaller, when ImageIO can't read or write
+     * it (e.g. CMYK JPEGs), and for JPEGs rotated by their EXIF orientation, which re-encoding drops
+     *
+     * @param file              Uploaded png or jpg image
+     * @return InputStreamSource  The image to send to Odoo
+     */
+    public InputStreamSource process(MultipartFile file) throws ValidationException {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> resize(file));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many images are being processed", e);
+        }
+
+        byte[] processed;
+        try {
+            processed = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing image", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("Image processing timed out", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ValidationException) {
+                throw (ValidationException) e.getCause();
+            }
+            throw new IllegalStateException("Error while processing image", e.getCause());
+        }
+        return processed == null ? file : new ByteArrayResource(processed);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Decode, downscale and encode the image
+     *
+     * @param file      Uploaded image
+     * @return byte[]   The encoded image, null to keep the original
+     */
+    private byte[] resize(MultipartFile file) throws ValidationException, IOException {
+        if (isRotatedJpeg(file)) {
+            return null; // Re-encoding drops the EXIF block, the photo would be stored sideways
+        }
+        try (InputStream in = file.getInputStream(); ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = reader(imageIn);
+            BufferedImage image;
+            try {
+                image = decode(reader);
+            } catch (IOException | RuntimeException e) {
+                return null; // A format ImageIO recognises but can't decode, Odoo gets it as it is
+            } finally {
+                reader.dispose();
+            }
+
+            boolean tooLarge = image.getWidth() > maxSize || image.getHeight() > maxSize;
+            if (tooLarge) {
+                image = scale(image);
+            }
+            boolean hasAlpha = image.getColorModel().hasAlpha();
+            byte[] encoded;
+            try {
+                encoded = hasAlpha ? encodePng(image) : encodeJpeg(image);
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+            return tooLarge || encoded.length < file.getSize() ? encoded : null;
+        }
+    }
+
+    /**
+     * Find the reader of the image and check its size before anything is decoded
+     *
+     * @param imageIn           The uploaded image
+     * @return ImageReader      Reader positioned on the image, disposed by the caller
+     * @throws ValidationException  Not an image ImageIO recognises, or more pixels than maxPixels
+     */
+    private ImageReader reader(ImageInputStream imageIn) throws ValidationException {
+        Iterator<ImageReader> readers = imageIn == null ? null : ImageIO.getImageReaders(imageIn);
+        if (readers == null || !readers.hasNext()) {
+            throw new ValidationException("File must be a valid png or jpg image");
+        }
+        ImageReader reader = readers.next();
+        long pixels;
+        try {
+            reader.setInput(imageIn, true, true);
+            pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        } catch (IOException | RuntimeException e) {
+            reader.dispose();
+            throw new ValidationException("File must be a valid png or jpg image");
+        }
+        if (pixels > maxPixels) {
+            reader.dispose();
+            throw new ValidationException("Image must be at most " + maxPixels / 1_000_000 + " megapixels");
+        }
+        return reader;
+    }
+
+    /**
+     * Decode the image, subsampling large images while reading
+     * Description: The subsampling is rounded up so the decoded bitmap is at most twice maxSize on
+     * its largest side, together with maxPixels this bounds the memory of an upload
+     */
+    private BufferedImage decode(ImageReader reader) throws IOException {
+        int largestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+        ImageReadParam param = reader.getDefaultReadParam();
+        // Keep at least twice the target size so the final scaling still has detail to work with
+        int subsampling = Math.max(1, (int) Math.ceil(largestSide / (2.0 * maxSize)));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+    }
+
+    /**
+     * Check whether the file is a JPEG whose EXIF orientation is not upright
+     * Description: Walks the JPEG segments up to the image data looking for the Exif APP1
+     * segment, then reads the Orientation tag (0x0112) of its first IFD
+     */
+    private static boolean isRotatedJpeg(MultipartFile file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.getInputStream()))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return false; // Not a JPEG
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return false; // Image data reached without an Exif segment
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return false;
+                }
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (marker == 0xFFE1 && length > 14 && segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i'
+                        && segment[3] == 'f' && segment[4] == 0 && segment[5] == 0) {
+                    return orientation(segment, 6) > 1;
+                }
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read the Orientation tag of the first IFD of a TIFF header
+     *
+     * @param exif      The Exif segment
+     * @param tiff      Offset of the TIFF header in the segment
+     * @return int      The orientation, 1 (upright) when absent or unreadable
+     */
+    private static int orientation(byte[] exif, int tiff) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(exif);
+            buffer.order(exif[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff + buffer.getInt(tiff + 4);
+            int entries = buffer.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((buffer.getShort(entry) & 0xFFFF) == 0x0112) {
+                    return buffer.getShort(entry + 8) & 0xFFFF;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or corrupt Exif, treated as upright
+        }
+        return 1;
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = (double) maxSize / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        // JPEG has no alpha channel and some decoders produce types the writer can't handle
+        if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+            image = rgb;
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
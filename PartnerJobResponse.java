@@ -0,0 +1,17 @@
+package com.gii.midapp.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PartnerJobResponse {
+    private String jobId;
+    private String operation;   // create or update
+    private Integer partnerId;  // Odoo id of the partner, null until a create is done
+    private String status;      // PENDING, DONE or FAILED
+    private Integer attempts;   // Calls sent to Odoo so far
+    private String message;     // Last error message, null when there was none
+}
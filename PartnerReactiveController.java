@@ -0,0 +1,45 @@
+package com.gii.midapp.controller;
+
+import com.gii.midapp.base.BaseResponse;
+import com.gii.midapp.service.PartnerReactiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Partner reads answered without holding a request thread while Odoo works
+ */
+@RestController
+@RequestMapping("/reactive/partner")
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class PartnerReactiveController {
+    @Autowired
+    PartnerReactiveService partnerReactiveService;
+
+    /**
+     * Search partner by name
+     *
+     * @param name
+     * @return List of partner
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<BaseResponse>> searchPartner(@RequestParam("name") String name) {
+        return partnerReactiveService.searchPartner(name)
+                .map(searchResults -> {
+                    BaseResponse resp = new BaseResponse();
+                    if (searchResults.isEmpty()) {
+                        resp.setMessage("Data tidak ditemukan");
+                        return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
+                    }
+                    resp.setMessage("Data ditemukan");
+                    resp.setData(searchResults);
+                    return new ResponseEntity<>(resp, HttpStatus.OK);
+                });
+    }
+}
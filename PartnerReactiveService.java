@@ -0,0 +1,37 @@
+package com.gii.midapp.service;
+
+import com.gii.midapp.model.response.PartnerResponse;
+import com.gii.midapp.xmlrpc.OdooReactiveClientApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of the partner reads of PartnerService
+ */
+@Service
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class PartnerReactiveService {
+    @Autowired
+    private OdooReactiveClientApi odooReactiveClientApi;
+    @Autowired
+    private PartnerSearchIndex partnerSearchIndex;
+
+    /**
+     * Search partner by name
+     * @param name  Partner name
+     * @return Mono List of partner
+     */
+    public Mono<List<PartnerResponse>> searchPartner(String name) {
+        // Answered in memory once the index is warm, Odoo scans res.partner for every ilike
+        if (partnerSearchIndex.isReady()) {
+            return Mono.fromSupplier(() -> partnerSearchIndex.search(name));
+        }
+
+        // Same search as the blocking one, sent over JSON-RPC as the List of its parameters
+        return odooReactiveClientApi.searchAndRead(PartnerService.SEARCH_BY_NAME.bind(name), PartnerResponse.ODOO_ROW_MAPPER);
+    }
+}
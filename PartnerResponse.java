@@ -1,47 +1,113 @@
-package com.gii.midapp.model.response;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class PartnerResponse {
-    private String name;
-    private String phone;
-    private Boolean mobile;
-    private String email;
-    private String website;
-
-    public static List<PartnerResponse> fromOdooResponse(List<Object> resp) {
-        List<PartnerResponse> result = new ArrayList<>();
-        for (Object obj : resp) {
-            HashMap<String, Object> map = (HashMap<String, Object>) obj;
-            PartnerResponse partnerResponse = new PartnerResponse(
-                    map.get("name").toString(),
-                    map.get("phone").toString(),
-                    map.get("mobile").toString().equals("true"),
-                    map.get("email").toString(),
-                    map.get("website").toString()
-            );
-            result.add(partnerResponse);
-        }
-        return result;
-    }
-
-    @Override
-    public String toString() {
-        return "SearchPartnerResponse{" +
-                "name='" + name + '\'' +
-                ", phone='" + phone + '\'' +
-                ", mobile=" + mobile +
-                ", email='" + email + '\'' +
-                ", website='" + website + '\'' +
-                '}';
-    }
-}
+package com.gii.midapp.model.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.gii.midapp.xmlrpc.OdooRowMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PartnerResponse {
+    private String name;
+    private String phone;
+    private Boolean mobile;
+    private String email;
+    private String website;
+    @JsonIgnore
+    private Long id;        // Only used to compute the ETag of search results
+    @JsonIgnore
+    private Date updatedAt; // write_date, only used for the ETag and Last-Modified of search results
+
+    /**
+     * Maps res.partner records field by field while the search_read response is parsed
+     */
+    public static final OdooRowMapper<PartnerResponse> ODOO_ROW_MAPPER = new OdooRowMapper<PartnerResponse>() {
+        @Override
+        public PartnerResponse newRow() {
+            return new PartnerResponse();
+        }
+
+        @Override
+        public void setField(PartnerResponse row, String field, Object value) {
+            switch (field) {
+                case "name":
+                    row.setName(String.valueOf(value));
+                    break;
+                case "phone":
+                    row.setPhone(String.valueOf(value));
+                    break;
+                case "mobile":
+                    row.setMobile(Boolean.TRUE.equals(value) || "true".equals(value));
+                    break;
+                case "email":
+                    row.setEmail(String.valueOf(value));
+                    break;
+                case "website":
+                    row.setWebsite(String.valueOf(value));
+                    break;
+                case "id":
+                    row.setId(((Number) value).longValue());
+                    break;
+                case "write_date":
+                    row.setUpdatedAt(writeDateToDate(value));
+                    break;
+                default:
+                    break; // Fields the response doesn't expose
+            }
+        }
+    };
+
+    public static List<PartnerResponse> fromOdooResponse(List<Object> resp) {
+        List<PartnerResponse> result = new ArrayList<>(resp.size());
+        for (Object obj : resp) {
+            Map<String, Object> map = (Map<String, Object>) obj;
+            Object mobile = map.get("mobile");
+            PartnerResponse partnerResponse = new PartnerResponse(
+                    map.get("name").toString(),
+                    map.get("phone").toString(),
+                    Boolean.TRUE.equals(mobile) || "true".equals(mobile),
+                    map.get("email").toString(),
+                    map.get("website").toString(),
+                    map.get("id") instanceof Number ? ((Number) map.get("id")).longValue() : null,
+                    writeDateToDate(map.get("write_date"))
+            );
+            result.add(partnerResponse);
+        }
+        return result;
+    }
+
+    /**
+     * Convert an Odoo write_date (UTC, yyyy-MM-dd HH:mm:ss) to a Date
+     *
+     * @param value     write_date as read from Odoo, false or null when not read
+     * @return Date     The date, null when there is none
+     */
+    private static Date writeDateToDate(Object value) {
+        if (!(value instanceof String)) {
+            return null;
+        }
+        LocalDateTime writeDate = LocalDateTime.parse((String) value, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        return Date.from(writeDate.toInstant(ZoneOffset.UTC));
+    }
+
+    @Override
+    public String toString() {
+        return "SearchPartnerResponse{" +
+                "name='" + name + '\'' +
+                ", phone='" + phone + '\'' +
+                ", mobile=" + mobile +
+                ", email='" + email + '\'' +
+                ", website='" + website + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,400 @@
+package com.gii.midapp.service;
+
+import com.gii.midapp.exception.OdooException;
+import com.gii.midapp.model.response.PartnerResponse;
+import com.gii.midapp.xmlrpc.OdooCallPriority;
+import com.gii.midapp.xmlrpc.OdooClientApi;
+import com.gii.midapp.xmlrpc.OdooMetrics;
+import com.gii.midapp.xmlrpc.OdooModelChangedEvent;
+import com.gii.midapp.xmlrpc.OdooTaskExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.Arrays.asList;
+
+/**
+ * In-process index answering the partner name search without calling Odoo
+ * Description: Every partner is kept with its case-folded name, and the name is indexed by
+ * trigram. A search intersects the id sets of the trigrams of the term, then checks the
+ * remaining names really contain it, which matches Odoo's ilike. Terms shorter than a trigram
+ * scan the names. The index is filled by a paged read at startup and kept current from
+ * OdooModelChangedEvent, until it is ready searches go to Odoo
+ */
+@Slf4j
+@Component
+public class PartnerSearchIndex {
+    private static final String MODEL = "res.partner";
+    private static final List<Object> FIELDS = asList("id", "name", "phone", "mobile", "email", "website", "write_date");
+    private static final int GRAM = 3;
+
+    private final OdooClientApi odooClientApi;
+    private final OdooTaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final int pageSize;
+    private final long retryDelay;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>(); // Guarded by lock
+    private final Map<String, Set<Integer>> trigrams = new HashMap<>(); // Trigram to partner ids, guarded by lock
+    private final Set<Integer> pendingIds = ConcurrentHashMap.newKeySet(); // Changed and not read again yet
+    private final AtomicBoolean refreshing = new AtomicBoolean(); // A refresh task is running, one at a time
+    private final AtomicLong version = new AtomicLong(); // Bumped by every change seen and every refresh applied
+    private volatile boolean ready;
+
+    /**
+     * Constructor
+     *
+     * @param odooClientApi Client used to load the partners
+     * @param taskExecutor  Runs the initial load and the refreshes off the caller thread
+     * @param metrics       Exposes the number of indexed partners
+     * @param enabled       Answer the partner search from the index
+     * @param pageSize      Partners read per call during the initial load
+     * @param retryDelay    Time in milliseconds before a failed load or refresh is tried again
+     */
+    @Autowired
+    public PartnerSearchIndex(OdooClientApi odooClientApi,
+                              OdooTaskExecutor taskExecutor,
+                              OdooMetrics metrics,
+                              @Value("${odoo.partner.search-index.enabled:false}") boolean enabled,
+                              @Value("${odoo.partner.search-index.page-size:1000}") int pageSize,
+                              @Value("${odoo.partner.search-index.retry-delay:30000}") long retryDelay) {
+        this.odooClientApi = odooClientApi;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.retryDelay = retryDelay;
+        metrics.gauge("odoo.partner.search_index.size", "Partners held by the search index", this, PartnerSearchIndex::size);
+    }
+
+    /**
+     * Check whether searches can be answered from the index
+     *
+     * @return boolean  true once the initial load is done, always false when the index is disabled
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Version of the indexed partners, for validators derived from the search results
+     * Description: Changes whenever a change is seen or applied, so a result read at one version
+     * is current as long as the version is the same. Null while changed partners are still
+     * waiting to be read again: the index lags Odoo and its results must not be remembered
+     *
+     * @return String   The version, constant until the index is ready since searches go to Odoo
+     */
+    public String getVersion() {
+        if (!ready) {
+            return "odoo";
+        }
+        long current = version.get();
+        if (!pendingIds.isEmpty() || refreshing.get()) {
+            return null;
+        }
+        return String.valueOf(current);
+    }
+
+    /**
+     * Find the partners whose name contains the term, ignoring case
+     *
+     * @param term  Search term, as sent to Odoo's ilike
+     * @return List Matching partners ordered by name
+     */
+    public List<PartnerResponse> search(String term) {
+        String folded = fold(term == null ? "" : term);
+        List<Entry> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (folded.length() < GRAM) {
+                for (Entry entry : entries.values()) {
+                    if (entry.foldedName.contains(folded)) {
+                        matches.add(entry);
+                    }
+                }
+            } else {
+                for (Integer id : candidates(folded)) {
+                    Entry entry = entries.get(id);
+                    if (entry.foldedName.contains(folded)) {
+                        matches.add(entry);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparing((Entry entry) -> entry.foldedName).thenComparing(entry -> -entry.id));
+        List<PartnerResponse> result = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            result.add(entry.partner);
+        }
+        return result;
+    }
+
+    /**
+     * Intersect the id sets of every trigram of the term, starting from the smallest
+     *
+     * @param folded    Case-folded term of at least three characters
+     * @return ids      Ids of the partners holding every trigram of the term
+     */
+    private Collection<Integer> candidates(String folded) {
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (String gram : trigramsOf(folded)) {
+            Set<Integer> ids = trigrams.get(gram);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<Integer> result = new ArrayList<>();
+        for (Integer id : sets.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < sets.size() && inAll; i++) {
+                inAll = sets.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Start the initial load once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            taskExecutor.submit(() -> {
+                OdooCallPriority.enter(OdooCallPriority.BULK); // Restored by the executor
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    log.error("Partner search index load failed, searches keep going to Odoo", e);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Keep the index current after partners are written
+     * Description: Deleted partners are dropped at once, created and updated ones are read
+     * again in the background. Changes seen while the index is warming are read after the load
+     *
+     * @param event The change
+     */
+    @EventListener
+    public void onModelChanged(OdooModelChangedEvent event) {
+        if (!enabled || !MODEL.equals(event.getModel()) || event.getIds().isEmpty()) {
+            return;
+        }
+        version.incrementAndGet();
+        if (event.isDeleted()) {
+            lock.writeLock().lock();
+            try {
+                for (Integer id : event.getIds()) {
+                    remove(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            version.incrementAndGet();
+        } else {
+            pendingIds.addAll(event.getIds());
+            // Checked after adding: if the load finished in between, its drain may have missed the ids
+            if (ready) {
+                refreshPending();
+            }
+        }
+    }
+
+    /**
+     * Read the pending partners again in the background
+     * Description: A single refresh task runs at a time and drains every pending id, so two reads
+     * of the same partner never race and an older one can't overwrite a newer one. Ids changed
+     * meanwhile wait in pendingIds for the running task
+     */
+    private void refreshPending() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return; // The running task picks the new ids up
+        }
+        try {
+            taskExecutor.submit(() -> {
+                OdooCallPriority.enter(OdooCallPriority.BULK); // Restored by the executor
+                drainPending();
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            log.warn("Partner search index refresh rejected, retried with the next change");
+        }
+    }
+
+    /**
+     * Refresh the pending ids until none is left, a failed read is retried after retryDelay
+     */
+    private void drainPending() throws InterruptedException {
+        try {
+            while (true) {
+                List<Integer> ids = new ArrayList<>(pendingIds);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                pendingIds.removeAll(ids);
+                try {
+                    refresh(ids);
+                    version.incrementAndGet();
+                } catch (RuntimeException e) {
+                    pendingIds.addAll(ids);
+                    log.warn("Partner search index refresh of {} partners failed, retrying in {} ms: {}",
+                            ids.size(), retryDelay, e.getMessage());
+                    Thread.sleep(retryDelay);
+                }
+            }
+        } finally {
+            refreshing.set(false);
+        }
+        // Ids added between the last empty check and clearing the flag found the task still running
+        if (!pendingIds.isEmpty()) {
+            refreshPending();
+        }
+    }
+
+    /**
+     * Read every partner page by page, keyed on id so pages stay stable while partners are created
+     */
+    private void load() throws InterruptedException {
+        while (true) {
+            try {
+                int lastId = 0;
+                List<Object> rows;
+                do {
+                    rows = odooClientApi.searchAndRead(MODEL, asList(
+                            asList(asList("id", ">", lastId)),
+                            FIELDS,
+                            0,
+                            pageSize,
+                            "id"
+                    ));
+                    lock.writeLock().lock();
+                    try {
+                        for (Object row : rows) {
+                            put((Map<String, Object>) row);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    if (!rows.isEmpty()) {
+                        lastId = ((Number) ((Map<String, Object>) rows.get(rows.size() - 1)).get("id")).intValue();
+                    }
+                } while (rows.size() == pageSize);
+                break;
+            } catch (OdooException e) {
+                log.warn("Partner search index load failed, retrying in {} ms: {}", retryDelay, e.getMessage());
+                Thread.sleep(retryDelay);
+            }
+        }
+        ready = true;
+        // Changes seen before ready was set; later ones are refreshed by onModelChanged itself
+        refreshPending();
+    }
+
+    /**
+     * Read the given partners again, the ones Odoo doesn't return anymore are dropped
+     *
+     * @param ids   Ids of the changed partners
+     */
+    private void refresh(List<Integer> ids) {
+        List<Object> rows = odooClientApi.searchAndRead(MODEL, asList(
+                asList(asList("id", "in", ids)),
+                FIELDS
+        ));
+        lock.writeLock().lock();
+        try {
+            Set<Integer> missing = new HashSet<>(ids);
+            for (Object row : rows) {
+                Map<String, Object> map = (Map<String, Object>) row;
+                put(map);
+                missing.remove(((Number) map.get("id")).intValue());
+            }
+            for (Integer id : missing) {
+                remove(id); // Deleted or archived
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Map<String, Object> row) {
+        Integer id = ((Number) row.get("id")).intValue();
+        PartnerResponse partner = PartnerResponse.ODOO_ROW_MAPPER.newRow();
+        for (Map.Entry<String, Object> field : row.entrySet()) {
+            PartnerResponse.ODOO_ROW_MAPPER.setField(partner, field.getKey(), field.getValue());
+        }
+        remove(id);
+        Entry entry = new Entry(id, fold(partner.getName()), partner);
+        entries.put(id, entry);
+        for (String gram : trigramsOf(entry.foldedName)) {
+            trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(Integer id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String gram : trigramsOf(entry.foldedName)) {
+            Set<Integer> ids = trigrams.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                trigrams.remove(gram);
+            }
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigramsOf(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class Entry {
+        private final Integer id;
+        private final String foldedName;
+        private final PartnerResponse partner;
+
+        private Entry(Integer id, String foldedName, PartnerResponse partner) {
+            this.id = id;
+            this.foldedName = foldedName;
+            this.partner = partner;
+        }
+    }
+}
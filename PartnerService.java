@@ -1,141 +1,436 @@
-package com.gii.midapp.service;
-
-import com.gii.midapp.exception.ValidationException;
-import com.gii.midapp.model.request.partner.CreatePartnerRequest;
-import com.gii.midapp.model.request.partner.UpdatePartnerRequest;
-import com.gii.midapp.xmlrpc.OdooClientApi;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import com.gii.midapp.model.response.PartnerResponse;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.util.*;
-
-import static java.util.Arrays.asList;
-
-@Service
-public class PartnerService {
-    @Autowired
-    private OdooClientApi odooClientApi;
-    private final String model = "res.partner";
-
-    /**
-     * Search partner by name
-     * @param name  Partner name
-     * @return List of partner
-     */
-    public List<PartnerResponse> searchPartner(String name) {
-        List<Object> searchParams = asList(
-                asList(
-                        asList("name", "ilike", name)
-                ),
-                asList(
-                        "name",
-                        "phone",
-                        "mobile",
-                        "email",
-                        "website"
-                )
-        );
-        List<Object> resp = odooClientApi.searchAndRead(model, searchParams);
-        return PartnerResponse.fromOdooResponse(resp);
-    }
-
-    /**
-     * Create partner
-     *
-     * @param request   Partner input data
-     * @param file      File to be uploaded
-     * @return Partner  created id
-     */
-    public Integer createPartner(CreatePartnerRequest request, MultipartFile file) throws ValidationException {
-        if (request.getName() == null || request.getName().isEmpty()) {
-            throw new ValidationException("Name is required");
-        }
-        if (request.getEmail() == null || request.getEmail().isEmpty()) {
-            throw new ValidationException("Email is required");
-        }
-        if (request.getPhone() == null || request.getPhone().isEmpty()) {
-            throw new ValidationException("Phone is required");
-        }
-        if (request.getMobile() == null) {
-            throw new ValidationException("Mobile is required");
-        }
-        if (file != null) {
-            if (!file.getContentType().equals("image/png") && !file.getContentType().equals("image/jpeg")) {
-                throw new ValidationException("File type must be png or jpg");
-            }
-            if (file.getSize() > 2097152) {
-                throw new ValidationException("File size must be less than 2MB");
-            }
-        }
-        Map<String, Object> params = new HashMap<>();
-        params.put("name", request.getName());
-        params.put("email", request.getEmail());
-        params.put("phone", request.getPhone());
-        params.put("mobile", request.getMobile());
-        params.put("website", request.getWebsite());
-        return odooClientApi.create(model, params, file);
-    }
-
-    /**
-     * Update partner
-     *
-     * @param request   Partner input data
-     * @param file      File to be uploaded
-     * @return Partner  created data
-     */
-    public PartnerResponse updatePartner(UpdatePartnerRequest request, MultipartFile file) throws ValidationException {
-        if (request.getId() == null) {
-            throw new ValidationException("Id is required");
-        }
-        if (request.getName() == null || request.getName().isEmpty()) {
-            throw new ValidationException("Name is required");
-        }
-        if (request.getEmail() == null || request.getEmail().isEmpty()) {
-            throw new ValidationException("Email is required");
-        }
-        if (request.getPhone() == null || request.getPhone().isEmpty()) {
-            throw new ValidationException("Phone is required");
-        }
-        if (request.getMobile() == null) {
-            throw new ValidationException("Mobile is required");
-        }
-        if (file != null) {
-            if (!file.getContentType().equals("image/png") && !file.getContentType().equals("image/jpeg")) {
-                throw new ValidationException("File type must be png or jpg");
-            }
-            if (file.getSize() > 2097152) {
-                throw new ValidationException("File size must be less than 2MB");
-            }
-        }
-        Map<String, Object> params = new HashMap<>();
-        params.put("name", request.getName());
-        params.put("email", request.getEmail());
-        params.put("phone", request.getPhone());
-        params.put("mobile", request.getMobile());
-        params.put("website", request.getWebsite());
-        Integer idInt = request.getId().intValue();
-        Object[] resp = odooClientApi.update(model, idInt, params, file);
-
-        Object[] innerArray = (Object[]) resp[0]; // Accessing the inner array at index 0
-        String stringValue = (String) innerArray[1]; // Accessing the string value at index 1
-        PartnerResponse partnerResponse = new PartnerResponse();
-        partnerResponse.setName(stringValue);
-
-        return partnerResponse;
-    }
-
-    /**
-     * Delete partner
-     * @param id    Partner id
-     * @return message info
-     */
-    public String deletePartner(Long id) throws ValidationException {
-        if (id == null) {
-            throw new ValidationException("Id is required");
-        }
-        Integer idInt = id.intValue();
-        return odooClientApi.delete(model, idInt);
-    }
+package com.gii.midapp.service;
+
+import com.gii.midapp.exception.OdooFaultException;
+import com.gii.midapp.exception.OdooUnavailableException;
+import com.gii.midapp.exception.ValidationException;
+import com.gii.midapp.model.request.partner.CreatePartnerRequest;
+import com.gii.midapp.model.request.partner.UpdatePartnerRequest;
+import com.gii.midapp.xmlrpc.OdooClientApi;
+import com.gii.midapp.xmlrpc.OdooQueryTemplate;
+import com.gii.midapp.model.response.BulkItemResponse;
+import com.gii.midapp.model.response.PartnerJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import com.gii.midapp.model.response.PartnerResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+
+@Service
+public class PartnerService {
+    @Autowired
+    private OdooClientApi odooClientApi;
+    @Autowired
+    private PartnerImageProcessor partnerImageProcessor;
+    @Autowired
+    private PartnerSearchIndex partnerSearchIndex;
+    @Autowired
+    private PartnerWriteQueue partnerWriteQueue;
+    private final String model = "res.partner";
+    // Name search sent to Odoo until the search index is warm, encoded once, shared with PartnerReactiveService
+    static final OdooQueryTemplate SEARCH_BY_NAME = new OdooQueryTemplate("res.partner", "search_read", asList(
+            asList(
+                    asList("name", "ilike", OdooQueryTemplate.param(0))
+            ),
+            asList(
+                    "name",
+                    "phone",
+                    "mobile",
+                    "email",
+                    "website",
+                    "write_date"
+            )
+    ));
+    @Value("${odoo.partner.bulk-chunk-size:500}")
+    private Integer bulkChunkSize;
+
+    /**
+     * Search partner by name
+     * @param name  Partner name
+     * @return List of partner
+     */
+    public List<PartnerResponse> searchPartner(String name) {
+        // Answered in memory once the index is warm, Odoo scans res.partner for every ilike
+        if (partnerSearchIndex.isReady()) {
+            return partnerSearchIndex.search(name);
+        }
+
+        return odooClientApi.searchAndRead(SEARCH_BY_NAME.bind(name), PartnerResponse.ODOO_ROW_MAPPER);
+    }
+
+    /**
+     * Version of the source of searchPartner, see PartnerSearchIndex.getVersion
+     *
+     * @return String   The version, null while the results may lag Odoo
+     */
+    public String getSearchVersion() {
+        return partnerSearchIndex.getVersion();
+    }
+
+    /**
+     * Create partner
+     *
+     * @param request   Partner input data
+     * @param file      File to be uploaded
+     * @return Partner  created id
+     */
+    public Integer createPartner(CreatePartnerRequest request, MultipartFile file) throws ValidationException {
+        validateFields(request);
+        validateFile(file);
+        Map<String, Object> params = toParams(request);
+        InputStreamSource image = file != null ? partnerImageProcessor.process(file) : null;
+        return odooClientApi.create(model, params, image);
+    }
+
+    /**
+     * Update partner
+     *
+     * @param request   Partner input data
+     * @param file      File to be uploaded
+     * @return Partner  created data
+     */
+    public PartnerResponse updatePartner(UpdatePartnerRequest request, MultipartFile file) throws ValidationException {
+        if (request.getId() == null) {
+            throw new ValidationException("Id is required");
+        }
+        validateFields(request);
+        validateFile(file);
+        Map<String, Object> params = toParams(request);
+        Integer idInt = request.getId().intValue();
+        InputStreamSource image = file != null ? partnerImageProcessor.process(file) : null;
+        Object[] resp = odooClientApi.update(model, idInt, params, image);
+
+        Object[] innerArray = (Object[]) resp[0]; // Accessing the inner array at index 0
+        String stringValue = (String) innerArray[1]; // Accessing the string value at index 1
+        PartnerResponse partnerResponse = new PartnerResponse();
+        partnerResponse.setName(stringValue);
+
+        return partnerResponse;
+    }
+
+    /**
+     * Check whether partner writes can be queued
+     *
+     * @return boolean  true when the write-behind queue is enabled
+     */
+    public boolean isAsyncEnabled() {
+        return partnerWriteQueue.isEnabled();
+    }
+
+    /**
+     * Queue a partner creation, it is sent to Odoo in the background
+     *
+     * @param request   Partner input data
+     * @param file      File to be uploaded
+     * @return jobId    Id of the queued job
+     */
+    public String submitCreatePartner(CreatePartnerRequest request, MultipartFile file) throws ValidationException, IOException {
+        validateFields(request);
+        validateFile(file);
+        InputStreamSource image = file != null ? partnerImageProcessor.process(file) : null;
+        return partnerWriteQueue.submit("create", null, toParams(request), image);
+    }
+
+    /**
+     * Queue a partner update, updates of the same partner are sent to Odoo in order
+     *
+     * @param request   Partner input data
+     * @param file      File to be uploaded
+     * @return jobId    Id of the queued job
+     */
+    public String submitUpdatePartner(UpdatePartnerRequest request, MultipartFile file) throws ValidationException, IOException {
+        if (request.getId() == null) {
+            throw new ValidationException("Id is required");
+        }
+        validateFields(request);
+        validateFile(file);
+        InputStreamSource image = file != null ? partnerImageProcessor.process(file) : null;
+        return partnerWriteQueue.submit("update", request.getId().intValue(), toParams(request), image);
+    }
+
+    /**
+     * Get the status of a queued partner write
+     *
+     * @param jobId                 Id returned when the write was queued
+     * @return PartnerJobResponse   The status, null if the job is unknown
+     */
+    public PartnerJobResponse getPartnerJob(String jobId) {
+        PartnerWriteQueue.Job job = partnerWriteQueue.getJob(jobId);
+        if (job == null) {
+            return null;
+        }
+        return new PartnerJobResponse(job.getJobId(), job.getOperation(), job.getPartnerId(), job.getStatus(),
+                job.getAttempts(), job.getMessage());
+    }
+
+    /**
+     * Delete partner
+     * @param id    Partner id
+     * @return message info
+     */
+    public String deletePartner(Long id) throws ValidationException {
+        if (id == null) {
+            throw new ValidationException("Id is required");
+        }
+        Integer idInt = id.intValue();
+        return odooClientApi.delete(model, idInt);
+    }
+
+    /**
+     * Create partners in bulk
+     * Description: Valid records are sent to Odoo in chunks, one create call per chunk.
+     * If Odoo rejects a chunk it is retried record by record so only the faulty records fail.
+     * A chunk Odoo could not be reached for fails as a whole, it may have been created already
+     *
+     * @param requests  Partner input data
+     * @param chunkSize Records per Odoo call, the configured default when null, at most the configured default
+     * @return result   One entry per request, in the same order
+     */
+    public List<BulkItemResponse> createPartners(List<CreatePartnerRequest> requests, Integer chunkSize) {
+        BulkItemResponse[] results = new BulkItemResponse[requests.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Map<String, Object>> dataList = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateFields(requests.get(i));
+                indexes.add(i);
+                dataList.add(toParams(requests.get(i)));
+            } catch (ValidationException ve) {
+                results[i] = new BulkItemResponse(i, null, false, ve.getMessage());
+            }
+        }
+
+        int size = resolveChunkSize(chunkSize);
+        for (int from = 0; from < dataList.size(); from += size) {
+            int to = Math.min(from + size, dataList.size());
+            List<Integer> chunkIndexes = indexes.subList(from, to);
+            List<Map<String, Object>> chunk = dataList.subList(from, to);
+            try {
+                List<Integer> ids = odooClientApi.createBatch(model, chunk);
+                for (int k = 0; k < chunk.size(); k++) {
+                    results[chunkIndexes.get(k)] = new BulkItemResponse(chunkIndexes.get(k), ids.get(k).longValue(), true, null);
+                }
+            } catch (OdooUnavailableException ue) {
+                // The chunk may have been created before the call failed, creating it again could duplicate it
+                markUnavailable(results, chunkIndexes, 0, index -> null, ue);
+            } catch (OdooFaultException fe) {
+                for (int k = 0; k < chunk.size(); k++) {
+                    int index = chunkIndexes.get(k);
+                    try {
+                        List<Integer> ids = odooClientApi.createBatch(model, Collections.singletonList(chunk.get(k)));
+                        results[index] = new BulkItemResponse(index, ids.get(0).longValue(), true, null);
+                    } catch (OdooFaultException e) {
+                        results[index] = new BulkItemResponse(index, null, false, e.getMessage());
+                    } catch (OdooUnavailableException e) {
+                        markUnavailable(results, chunkIndexes, k, i -> null, e);
+                        break;
+                    }
+                }
+            }
+        }
+        return asList(results);
+    }
+
+    /**
+     * Update partners in bulk
+     * Description: Records that carry exactly the same data are grouped and written with
+     * one write call per chunk. A chunk rejected by Odoo is retried record by record,
+     * a chunk Odoo could not be reached for fails as a whole
+     *
+     * @param requests  Partner input data
+     * @param chunkSize Records per Odoo call, the configured default when null, at most the configured default
+     * @return result   One entry per request, in the same order
+     */
+    public List<BulkItemResponse> updatePartners(List<UpdatePartnerRequest> requests, Integer chunkSize) {
+        BulkItemResponse[] results = new BulkItemResponse[requests.size()];
+        // Group the ids by the data to be written, keeping the index of each request
+        Map<Map<String, Object>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UpdatePartnerRequest request = requests.get(i);
+            try {
+                if (request.getId() == null) {
+                    throw new ValidationException("Id is required");
+                }
+                validateFields(request);
+                groups.computeIfAbsent(toParams(request), k -> new ArrayList<>()).add(i);
+            } catch (ValidationException ve) {
+                results[i] = new BulkItemResponse(i, request.getId(), false, ve.getMessage());
+            }
+        }
+
+        int size = resolveChunkSize(chunkSize);
+        for (Map.Entry<Map<String, Object>, List<Integer>> group : groups.entrySet()) {
+            List<Integer> groupIndexes = group.getValue();
+            for (int from = 0; from < groupIndexes.size(); from += size) {
+                List<Integer> chunkIndexes = groupIndexes.subList(from, Math.min(from + size, groupIndexes.size()));
+                List<Integer> ids = new ArrayList<>(chunkIndexes.size());
+                for (Integer index : chunkIndexes) {
+                    ids.add(requests.get(index).getId().intValue());
+                }
+                try {
+                    odooClientApi.updateBatch(model, ids, group.getKey());
+                    for (Integer index : chunkIndexes) {
+                        results[index] = new BulkItemResponse(index, requests.get(index).getId(), true, null);
+                    }
+                } catch (OdooUnavailableException ue) {
+                    markUnavailable(results, chunkIndexes, 0, index -> requests.get(index).getId(), ue);
+                } catch (OdooFaultException fe) {
+                    for (int k = 0; k < chunkIndexes.size(); k++) {
+                        int index = chunkIndexes.get(k);
+                        try {
+                            odooClientApi.updateBatch(model, Collections.singletonList(ids.get(k)), group.getKey());
+                            results[index] = new BulkItemResponse(index, requests.get(index).getId(), true, null);
+                        } catch (OdooFaultException e) {
+                            results[index] = new BulkItemResponse(index, requests.get(index).getId(), false, e.getMessage());
+                        } catch (OdooUnavailableException e) {
+                            markUnavailable(results, chunkIndexes, k, i -> requests.get(i).getId(), e);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return asList(results);
+    }
+
+    /**
+     * Delete partners in bulk
+     *
+     * @param ids       Partner ids
+     * @param chunkSize Records per Odoo call, the configured default when null, at most the configured default
+     * @return result   One entry per id, in the same order
+     */
+    public List<BulkItemResponse> deletePartners(List<Long> ids, Integer chunkSize) {
+        BulkItemResponse[] results = new BulkItemResponse[ids.size()];
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = new BulkItemResponse(i, null, false, "Id is required");
+            } else {
+                indexes.add(i);
+            }
+        }
+
+        int size = resolveChunkSize(chunkSize);
+        for (int from = 0; from < indexes.size(); from += size) {
+            List<Integer> chunkIndexes = indexes.subList(from, Math.min(from + size, indexes.size()));
+            List<Integer> chunk = new ArrayList<>(chunkIndexes.size());
+            for (Integer index : chunkIndexes) {
+                chunk.add(ids.get(index).intValue());
+            }
+            try {
+                odooClientApi.deleteBatch(model, chunk);
+                for (Integer index : chunkIndexes) {
+                    results[index] = new BulkItemResponse(index, ids.get(index), true, null);
+                }
+            } catch (OdooUnavailableException ue) {
+                markUnavailable(results, chunkIndexes, 0, ids::get, ue);
+            } catch (OdooFaultException fe) {
+                for (int k = 0; k < chunkIndexes.size(); k++) {
+                    int index = chunkIndexes.get(k);
+                    try {
+                        odooClientApi.deleteBatch(model, Collections.singletonList(chunk.get(k)));
+                        results[index] = new BulkItemResponse(index, ids.get(index), true, null);
+                    } catch (OdooFaultException e) {
+                        results[index] = new BulkItemResponse(index, ids.get(index), false, e.getMessage());
+                    } catch (OdooUnavailableException e) {
+                        markUnavailable(results, chunkIndexes, k, ids::get, e);
+                        break;
+                    }
+                }
+            }
+        }
+        return asList(results);
+    }
+
+    /**
+     * Fail the records of a chunk Odoo could not be reached for
+     * Description: Their outcome is unknown, the call may have been applied before it failed,
+     * so they are not sent again one by one
+     *
+     * @param results       Results of the bulk call
+     * @param chunkIndexes  Request indexes of the chunk
+     * @param from          Position in the chunk of the first record to fail
+     * @param idOf          Id reported for a request index
+     * @param e             The failure
+     */
+    private static void markUnavailable(BulkItemResponse[] results, List<Integer> chunkIndexes, int from,
+                                        Function<Integer, Long> idOf, OdooUnavailableException e) {
+        for (int k = from; k < chunkIndexes.size(); k++) {
+            int index = chunkIndexes.get(k);
+            results[index] = new BulkItemResponse(index, idOf.apply(index), false, e.getMessage());
+        }
+    }
+
+    /**
+     * Validate the fields shared by create and update
+     *
+     * @param request   Partner input data
+     */
+    private void validateFields(CreatePartnerRequest request) throws ValidationException {
+        if (request.getName() == null || request.getName().isEmpty()) {
+            throw new ValidationException("Name is required");
+        }
+        if (request.getEmail() == null || request.getEmail().isEmpty()) {
+            throw new ValidationException("Email is required");
+        }
+        if (request.getPhone() == null || request.getPhone().isEmpty()) {
+            throw new ValidationException("Phone is required");
+        }
+        if (request.getMobile() == null) {
+            throw new ValidationException("Mobile is required");
+        }
+    }
+
+    /**
+     * Validate the uploaded image
+     *
+     * @param file  File to be uploaded, may be null
+     */
+    private void validateFile(MultipartFile file) throws ValidationException {
+        if (file != null) {
+            if (!file.getContentType().equals("image/png") && !file.getContentType().equals("image/jpeg")) {
+                throw new ValidationException("File type must be png or jpg");
+            }
+            if (file.getSize() > 2097152) {
+                throw new ValidationException("File size must be less than 2MB");
+            }
+        }
+    }
+
+    /**
+     * Map the request to the Odoo record data
+     *
+     * @param request   Partner input data
+     * @return params   Odoo record data
+     */
+    private Map<String, Object> toParams(CreatePartnerRequest request) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", request.getName());
+        params.put("email", request.getEmail());
+        params.put("phone", request.getPhone());
+        params.put("mobile", request.getMobile());
+        params.put("website", request.getWebsite());
+        return params;
+    }
+
+    /**
+     * Resolve the number of records sent per Odoo call
+     *
+     * @param chunkSize Requested chunk size, may be null
+     * @return size     The configured size when null, otherwise the requested size clamped between 1
+     *                  and the configured size, so a client can't send one unbounded call to Odoo
+     */
+    private int resolveChunkSize(Integer chunkSize) {
+        if (chunkSize == null) {
+            return bulkChunkSize;
+        }
+        return Math.max(1, Math.min(chunkSize, bulkChunkSize));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,586 @@
+package com.gii.midapp.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gii.midapp.exception.OdooException;
+import com.gii.midapp.exception.OdooUnavailableException;
+import com.gii.midapp.xmlrpc.OdooCallPriority;
+import com.gii.midapp.xmlrpc.OdooClientApi;
+import com.gii.midapp.xmlrpc.OdooMetrics;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue of partner creates and updates sent to Odoo in the background
+ * Description: A job is appended to a journal file and synced to disk before submit returns,
+ * then drained by a fixed set of workers. Updates of the same partner always go to the same
+ * worker so they reach Odoo in order, creates are spread round robin and consecutive creates
+ * without an image are sent in one create call. Calls failing because Odoo can't be reached
+ * are retried with exponential backoff, faults fail the job at once. A job waiting for its retry
+ * is put aside by its worker, which goes on with the other jobs, only the later writes of the
+ * same partner wait behind it. On startup the journal is replayed and the jobs that were not
+ * done are queued again.
+ * A create whose reply was lost after Odoo committed it is sent again, so it can be duplicated
+ */
+@Slf4j
+@Component
+public class PartnerWriteQueue implements InitializingBean, DisposableBean {
+    private static final String MODEL = "res.partner";
+    private static final String JOURNAL = "journal.jsonl";
+
+    private final OdooClientApi odooClientApi;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoff;
+    private final int retainedJobs;
+    private final long journalMaxBytes;
+    private final List<BlockingQueue<Job>> partitions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>(); // Pending jobs and the last finished ones
+    private final Queue<String> finishedJobIds = new ConcurrentLinkedQueue<>(); // Oldest first, trimmed to retainedJobs
+    private final AtomicInteger nextPartition = new AtomicInteger();
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private final AtomicLong nextSequence = new AtomicLong(); // Submission order, survives compaction
+    private FileChannel journal; // Guarded by this
+    private volatile boolean running;
+
+    /**
+     * Constructor
+     *
+     * @param odooClientApi     Client the jobs are sent with
+     * @param metrics           Exposes the number of pending jobs
+     * @param enabled           Accept asynchronous writes
+     * @param directory         Directory of the journal and of the images waiting to be sent
+     * @param workers           Number of workers, each one sends its jobs in order
+     * @param batchSize         Max jobs a worker takes from its queue at once
+     * @param maxAttempts       Max calls sent for a job while Odoo can't be reached
+     * @param backoff           Delay in milliseconds before the first retry, doubled on every retry
+     * @param retainedJobs      Finished jobs whose status is kept
+     * @param journalMaxBytes   Journal size in bytes above which it is compacted
+     */
+    @Autowired
+    public PartnerWriteQueue(OdooClientApi odooClientApi,
+                             OdooMetrics metrics,
+                             @Value("${odoo.partner.async.enabled:false}") boolean enabled,
+                             @Value("${odoo.partner.async.directory:odoo-partner-queue}") String directory,
+                             @Value("${odoo.partner.async.workers:4}") int workers,
+                             @Value("${odoo.partner.async.batch-size:50}") int batchSize,
+                             @Value("${odoo.partner.async.max-attempts:10}") int maxAttempts,
+                             @Value("${odoo.partner.async.backoff:1000}") long backoff,
+                             @Value("${odoo.partner.async.retained-jobs:10000}") int retainedJobs,
+                             @Value("${odoo.partner.async.journal-max-bytes:67108864}") long journalMaxBytes) {
+        this.odooClientApi = odooClientApi;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.retainedJobs = retainedJobs;
+        this.journalMaxBytes = journalMaxBytes;
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new LinkedBlockingQueue<>());
+        }
+        metrics.gauge("odoo.partner.async.pending", "Partner writes waiting to be sent to Odoo", pendingJobs, AtomicInteger::get);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Job> pending = replay();
+        compact();
+        deleteOrphanImages();
+        running = true;
+        for (Job job : pending) {
+            enqueue(job);
+        }
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<Job> partition = partitions.get(i);
+            Thread worker = new Thread(() -> drain(partition), "odoo-partner-writer-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Queue a create or an update
+     * Description: The job and its image are synced to disk before this returns
+     *
+     * @param operation     create or update
+     * @param partnerId     Id of the partner to update, null for a create
+     * @param values        Partner data
+     * @param image         Image to send, may be null
+     * @return jobId        Id to follow the job with
+     */
+    public String submit(String operation, Integer partnerId, Map<String, Object> values, InputStreamSource image) throws IOException {
+        if (!running) {
+            throw new IllegalStateException("The partner write queue is not enabled");
+        }
+        Job job = new Job();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setOperation(operation);
+        job.setPartnerId(partnerId);
+        job.setValues(values);
+        job.setStatus("PENDING");
+        job.setAttempts(0);
+        if (image != null) {
+            Path file = directory.resolve(job.getJobId() + ".img");
+            try (InputStream in = image.getInputStream();
+                 FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                out.force(true);
+            }
+            syncDirectory(); // The journal must never point at an image whose directory entry was lost
+            job.setImage(file.toString());
+        }
+        // Journal and queue in the same order, so a restart replays the writes of a partner in order
+        synchronized (this) {
+            job.setSequence(nextSequence.incrementAndGet());
+            append(job);
+            enqueue(job);
+        }
+        return job.getJobId();
+    }
+
+    /**
+     * Get a job
+     *
+     * @param jobId Id returned by submit
+     * @return Job  The job, null if it is unknown or too old
+     */
+    public Job getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void enqueue(Job job) {
+        jobs.put(job.getJobId(), job);
+        pendingJobs.incrementAndGet();
+        int partition = job.getPartnerId() != null
+                ? Math.floorMod(job.getPartnerId(), partitions.size())
+                : Math.floorMod(nextPartition.getAndIncrement(), partitions.size());
+        partitions.get(partition).add(job);
+    }
+
+    /**
+     * Worker loop: take what is queued, up to the batch size, and send it in order
+     * Description: The jobs taken from the queue are kept by submission order until sent, a job
+     * waiting for its retry stays there without holding up the others
+     */
+    private void drain(BlockingQueue<Job> partition) {
+        OdooCallPriority.enter(OdooCallPriority.BULK); // Queued writes give way to interactive calls
+        NavigableMap<Long, Job> waiting = new TreeMap<>(); // Taken from the queue and not sent yet, by sequence
+        while (running) {
+            try {
+                List<Job> arrived = new ArrayList<>();
+                partition.drainTo(arrived, batchSize);
+                for (Job job : arrived) {
+                    waiting.put(job.getSequence(), job);
+                }
+                List<Job> batch = new ArrayList<>(batchSize);
+                long nextDue = takeDue(waiting, batch);
+                if (batch.isEmpty()) {
+                    long wait = Math.max(1, Math.min(1000, nextDue - System.currentTimeMillis()));
+                    Job next = partition.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        waiting.put(next.getSequence(), next);
+                    }
+                    continue;
+                }
+                send(batch, waiting);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Keep the worker alive, send records the failures of the jobs themselves
+                log.error("Partner write worker failed", e);
+            }
+        }
+    }
+
+    /**
+     * Move the jobs that may be sent now from waiting to the batch, in order, up to the batch size
+     * Description: A job is due once its retry time has passed, unless an earlier job of the same
+     * partner is still waiting
+     *
+     * @return long Time in milliseconds the first job held back for its retry time is due, Long.MAX_VALUE if none
+     */
+    private long takeDue(NavigableMap<Long, Job> waiting, List<Job> batch) {
+        long now = System.currentTimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        Set<Integer> heldPartners = new HashSet<>();
+        Iterator<Job> it = waiting.values().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            Job job = it.next();
+            boolean held = job.getPartnerId() != null && heldPartners.contains(job.getPartnerId());
+            if (!held && job.getNotBefore() <= now) {
+                batch.add(job);
+                it.remove();
+                continue;
+            }
+            if (!held) {
+                nextDue = Math.min(nextDue, job.getNotBefore());
+            }
+            if (job.getPartnerId() != null) {
+                heldPartners.add(job.getPartnerId());
+            }
+        }
+        return nextDue;
+    }
+
+    /**
+     * Send a batch keeping its order: runs of creates without an image go in one call,
+     * the other jobs one by one. The jobs to retry go back to waiting, and so do the later
+     * jobs of their partner
+     */
+    private void send(List<Job> batch, NavigableMap<Long, Job> waiting) {
+        Set<Integer> heldPartners = new HashSet<>();
+        List<Job> creates = new ArrayList<>();
+        for (Job job : batch) {
+            if (job.getPartnerId() != null && heldPartners.contains(job.getPartnerId())) {
+                waiting.put(job.getSequence(), job);
+                continue;
+            }
+            if ("create".equals(job.getOperation()) && job.getImage() == null) {
+                creates.add(job);
+                continue;
+            }
+            sendCreates(creates, waiting);
+            creates.clear();
+            sendOne(job, waiting);
+            if ("PENDING".equals(job.getStatus()) && job.getPartnerId() != null) {
+                heldPartners.add(job.getPartnerId());
+            }
+        }
+        sendCreates(creates, waiting);
+    }
+
+    private void sendCreates(List<Job> creates, NavigableMap<Long, Job> waiting) {
+        if (creates.isEmpty()) {
+            return;
+        }
+        if (creates.size() == 1) {
+            sendOne(creates.get(0), waiting);
+            return;
+        }
+        List<Map<String, Object>> dataList = new ArrayList<>(creates.size());
+        for (Job job : creates) {
+            dataList.add(new HashMap<>(job.getValues()));
+        }
+        List<Integer> ids;
+        try {
+            ids = odooClientApi.createBatch(MODEL, dataList);
+        } catch (OdooUnavailableException e) {
+            for (Job job : creates) {
+                job.setAttempts(job.getAttempts() + 1);
+                retryLater(job, e.getMessage(), waiting);
+            }
+            return;
+        } catch (OdooException e) {
+            for (Job job : creates) {
+                sendOne(job, waiting); // One record is rejected, find which one
+            }
+            return;
+        } catch (RuntimeException e) {
+            for (Job job : creates) {
+                fail(job, e);
+            }
+            return;
+        }
+        for (int i = 0; i < creates.size(); i++) {
+            Job job = creates.get(i);
+            job.setAttempts(job.getAttempts() + 1);
+            try {
+                finish(job, "DONE", ids.get(i), null);
+            } catch (RuntimeException e) {
+                fail(job, e);
+            }
+        }
+    }
+
+    private void sendOne(Job job, NavigableMap<Long, Job> waiting) {
+        job.setAttempts(job.getAttempts() + 1);
+        try {
+            InputStreamSource image = job.getImage() != null ? new FileSystemResource(job.getImage()) : null;
+            if ("create".equals(job.getOperation())) {
+                Integer id = odooClientApi.create(MODEL, new HashMap<>(job.getValues()), image);
+                finish(job, "DONE", id, null);
+            } else {
+                odooClientApi.update(MODEL, job.getPartnerId(), new HashMap<>(job.getValues()), image);
+                finish(job, "DONE", job.getPartnerId(), null);
+            }
+        } catch (OdooUnavailableException e) {
+            retryLater(job, e.getMessage(), waiting);
+        } catch (OdooException e) {
+            try {
+                finish(job, "FAILED", job.getPartnerId(), e.getMessage());
+            } catch (RuntimeException journalError) {
+                fail(job, journalError);
+            }
+        } catch (RuntimeException e) {
+            fail(job, e);
+        }
+    }
+
+    /**
+     * Put a job that could not reach Odoo back in waiting until its retry time, or fail it
+     * once it used its attempts
+     */
+    private void retryLater(Job job, String message, NavigableMap<Long, Job> waiting) {
+        try {
+            if (job.getAttempts() >= maxAttempts) {
+                finish(job, "FAILED", job.getPartnerId(), message);
+                return;
+            }
+            job.setMessage(message);
+            job.setNotBefore(System.currentTimeMillis() + (backoff << Math.min(job.getAttempts() - 1, 10)));
+            waiting.put(job.getSequence(), job);
+            append(job);
+        } catch (RuntimeException e) {
+            waiting.remove(job.getSequence());
+            fail(job, e);
+        }
+    }
+
+    /**
+     * Fail a job on an unexpected error, so it does not stay pending until a restart
+     * Description: Journaled when the journal can still be written, otherwise the job is only
+     * failed in memory and sent again after a restart
+     */
+    private void fail(Job job, RuntimeException e) {
+        log.error("Partner write job {} failed", job.getJobId(), e);
+        if (!"PENDING".equals(job.getStatus())) {
+            return; // Already finished, only its journal line is missing
+        }
+        job.setStatus("FAILED");
+        job.setMessage("Unexpected error: " + e.getMessage());
+        retain(job);
+        try {
+            append(job);
+        } catch (RuntimeException journalError) {
+            log.error("Failed to journal the failure of partner write job {}", job.getJobId(), journalError);
+        }
+    }
+
+    private void finish(Job job, String status, Integer partnerId, String message) {
+        job.setStatus(status);
+        job.setPartnerId(partnerId);
+        job.setMessage(message);
+        retain(job);
+        append(job);
+        if (job.getImage() != null) {
+            try {
+                Files.deleteIfExists(Paths.get(job.getImage()));
+            } catch (IOException ignored) {
+                // Removed on the next startup at the latest
+            }
+        }
+    }
+
+    /**
+     * Count a job as finished and keep its status among the last retainedJobs
+     */
+    private void retain(Job job) {
+        pendingJobs.decrementAndGet();
+        finishedJobIds.add(job.getJobId());
+        while (finishedJobIds.size() > retainedJobs) {
+            String oldest = finishedJobIds.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Append the current state of a job to the journal and sync it to disk
+     */
+    private synchronized void append(Job job) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(job) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            if (journal.size() > journalMaxBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the partner write journal", e);
+        }
+    }
+
+    /**
+     * Read the journal, the last line of a job is its current state
+     *
+     * Description: Every job is registered, so the compaction that follows keeps the pending ones
+     *
+     * @return List The jobs that were not finished, in the order they were submitted
+     */
+    private List<Job> replay() throws IOException {
+        Path file = directory.resolve(JOURNAL);
+        Map<String, Job> latest = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        Job job = objectMapper.readValue(line, Job.class);
+                        latest.put(job.getJobId(), job);
+                    } catch (IOException e) {
+                        break; // Torn last line of a crash, everything before it was synced
+                    }
+                }
+            }
+        }
+        List<Job> pending = new ArrayList<>();
+        for (Job job : latest.values()) {
+            nextSequence.set(Math.max(nextSequence.get(), job.getSequence()));
+            jobs.put(job.getJobId(), job);
+            if ("PENDING".equals(job.getStatus())) {
+                pending.add(job);
+            } else {
+                finishedJobIds.add(job.getJobId());
+            }
+        }
+        pending.sort(Comparator.comparingLong(Job::getSequence));
+        return pending;
+    }
+
+    /**
+     * Delete the images no pending job refers to, left when a job finished but its image could
+     * not be deleted, or when the process stopped between saving an image and journaling its job
+     * Description: Only run at startup, before submit is accepted, so an image being saved is never taken for an orphan
+     */
+    private void deleteOrphanImages() throws IOException {
+        Set<Path> referenced = new HashSet<>();
+        for (Job job : jobs.values()) {
+            if ("PENDING".equals(job.getStatus()) && job.getImage() != null) {
+                referenced.add(Paths.get(job.getImage()).toAbsolutePath().normalize());
+            }
+        }
+        try (DirectoryStream<Path> images = Files.newDirectoryStream(directory, "*.img")) {
+            for (Path image : images) {
+                if (!referenced.contains(image.toAbsolutePath().normalize())) {
+                    Files.deleteIfExists(image);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal with one line per known job, then swap it in
+     */
+    private synchronized void compact() throws IOException {
+        Path temporary = directory.resolve(JOURNAL + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Job job : jobs.values()) {
+                out.write(ByteBuffer.wrap((objectMapper.writeValueAsString(job) + "\n").getBytes(StandardCharsets.UTF_8)));
+            }
+            out.force(false);
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        Path file = directory.resolve(JOURNAL);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(); // Make the rename itself durable, or a crash may bring the old journal back
+        journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Sync the directory, making the files created or renamed in it durable
+     * Description: Some platforms can't open a directory, there the file system is trusted
+     */
+    private void syncDirectory() throws IOException {
+        FileChannel dir;
+        try {
+            dir = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (FileChannel channel = dir) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * A queued write, as stored in the journal
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Job {
+        private String jobId;
+        private long sequence;
+        private String operation;
+        private Integer partnerId;
+        private Map<String, Object> values;
+        private String image; // Path of the image waiting to be sent
+        private String status;
+        private Integer attempts;
+        private String message;
+        @JsonIgnore
+        private long notBefore; // Time in milliseconds before which the job is not retried, not journaled
+    }
+}